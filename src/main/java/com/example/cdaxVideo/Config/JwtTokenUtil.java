@@ -4,13 +4,20 @@ package com.example.cdaxVideo.Config;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -26,9 +33,68 @@ public class JwtTokenUtil {
     @Value("${jwt.issuer}")
     private String issuer;
     
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheSize;
+    
+    // Built once; both are immutable and thread-safe
+    private Key signingKey;
+    private JwtParser parser;
+    
+    // Recently verified tokens by SHA-256 of the token, least recently used evicted first
+    private Map<ByteBuffer, VerifiedClaims> verifiedCache;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedCache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, VerifiedClaims> eldest) {
+                return size() > verifiedCacheSize;
+            }
+        };
+    }
+    
     // Generate signing key from secret
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+    
+    // Verify signature and expiry once per token; repeat requests with the same token hit the cache.
+    // Throws a JwtException (ExpiredJwtException, SignatureException, ...) when the token is not valid.
+    public VerifiedClaims verify(String token) {
+        ByteBuffer key = tokenHash(token);
+        Instant now = Instant.now();
+        
+        VerifiedClaims cached;
+        synchronized (verifiedCache) {
+            cached = verifiedCache.get(key);
+            if (cached != null && cached.isExpired(now)) {
+                verifiedCache.remove(key);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            return cached;
+        }
+        
+        VerifiedClaims verified = VerifiedClaims.of(parser.parseClaimsJws(token).getBody());
+        synchronized (verifiedCache) {
+            verifiedCache.put(key, verified);
+        }
+        return verified;
+    }
+    
+    private static ByteBuffer tokenHash(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT string cannot be null or empty");
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
     
     // Extract username from token
@@ -50,11 +116,7 @@ public class JwtTokenUtil {
     // Extract all claims from token
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
             // Return claims even if token is expired
             return e.getClaims();
@@ -106,18 +168,18 @@ public class JwtTokenUtil {
     
     // Validate token against UserDetails
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        try {
+            return verify(token).subject().equals(userDetails.getUsername());
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
     }
     
     // Validate token (basic validation)
     public Boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
-            return !isTokenExpired(token);
+            verify(token);
+            return true;
         } catch (ExpiredJwtException e) {
             // Token is expired
             return false;
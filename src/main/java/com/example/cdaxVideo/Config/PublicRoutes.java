@@ -0,0 +1,97 @@
+package com.example.cdaxVideo.Config;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.List;
+
+/**
+ * Endpoints that are reachable without a token.
+ *
+ * {@link SecurityConfig} registers every entry as {@code permitAll()} and
+ * {@link JwtRequestFilter} compiles the same list into a {@link RouteTrie} to decide which
+ * requests it can skip, so the two cannot drift apart. Patterns use the Spring path syntax
+ * subset the trie understands: literal segments, {@code {name}}, {@code {name:\d+}} and a
+ * trailing {@code /**}.
+ */
+public final class PublicRoutes {
+
+    /** A public route; a null method means any method. */
+    public record Route(HttpMethod method, String pattern) {
+    }
+
+    public static final List<Route> ROUTES = List.of(
+            // Allow all OPTIONS requests (CORS preflight)
+            new Route(HttpMethod.OPTIONS, "/**"),
+
+            // Debug endpoints
+            any("/api/debug/**"),
+            any("/api/public/**"),
+
+            // ============ AUTHENTICATION ENDPOINTS ============
+            any("/api/auth/login"),
+            any("/api/auth/register"),
+            any("/api/auth/jwt/login"),
+            any("/api/auth/jwt/register"),
+            any("/api/auth/jwt/validate"),
+            any("/api/auth/jwt/refresh"),
+            any("/api/auth/forgot-password"),
+            any("/api/auth/reset-password"),
+            any("/api/auth/verify-email"),
+            any("/api/auth/firstName"),
+            any("/api/auth/getUserByEmail"),
+
+            // Public file access
+            any("/uploads/**"),
+
+            // Public course endpoints
+            any("/api/courses/public/**"),
+            get("/api/courses"),
+            get("/api/courses/{id:\\d+}"),
+            get("/api/courses/advanced-search"),
+            get("/api/courses/search/suggestions"),
+            get("/api/courses/tags/popular"),
+            get("/api/courses/tag/{tagName}"),
+            get("/api/courses/tags/match"),
+
+            // ============ MODULE ENDPOINTS ============
+            get("/api/modules/{id:\\d+}"),
+            get("/api/modules/course/{courseId:\\d+}"),
+            get("/api/modules/{moduleId:\\d+}/videos"),
+            get("/api/modules/{moduleId:\\d+}/assessments"),
+
+            // ============ ASSESSMENT ENDPOINTS ============
+            get("/api/course/assessment/**"),
+            get("/api/assessments/**"),
+
+            // Test endpoints
+            get("/api/test/**"),
+
+            // Public video endpoints
+            any("/api/videos/public/**"),
+
+            // Legacy public endpoints
+            any("/api/dashboard/public"),
+
+            // Swagger/OpenAPI
+            any("/swagger-ui/**"),
+            any("/v3/api-docs/**"),
+            any("/swagger-ui.html"),
+            any("/webjars/**"),
+            any("/swagger-resources/**"),
+
+            // Actuator endpoints
+            any("/actuator/health"),
+            any("/actuator/info")
+    );
+
+    private PublicRoutes() {
+    }
+
+    private static Route any(String pattern) {
+        return new Route(null, pattern);
+    }
+
+    private static Route get(String pattern) {
+        return new Route(HttpMethod.GET, pattern);
+    }
+}
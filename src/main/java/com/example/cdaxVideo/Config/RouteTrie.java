@@ -0,0 +1,156 @@
+package com.example.cdaxVideo.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Segment trie over route patterns, answering "does this method + path match a route".
+ *
+ * Built once; a lookup walks the path in place (no split, no substring, no regex) and
+ * allocates nothing. Each node tracks, as method bitmasks, the routes that end there and
+ * the routes that end there with a trailing {@code /**}. Literal children are tried before
+ * placeholders, and a placeholder branch is only taken when the literal one fails.
+ *
+ * Supported segments: literals, {@code {name}} (any non-empty segment), {@code {name:\d+}}
+ * (digits only) and a final {@code **}.
+ */
+public final class RouteTrie {
+
+    // One bit per method, see methodBit
+    private static final int ANY_METHOD = 0xFF;
+
+    private final Node root;
+
+    private RouteTrie(Node root) {
+        this.root = root;
+    }
+
+    public static RouteTrie of(List<PublicRoutes.Route> routes) {
+        Node root = new Node();
+        for (PublicRoutes.Route route : routes) {
+            root.insert(route.pattern(), route.method() == null ? ANY_METHOD : methodBit(route.method().name()));
+        }
+        return new RouteTrie(root);
+    }
+
+    public boolean matches(String method, String path) {
+        int bit = methodBit(method);
+        if (bit == 0 || path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return false;
+        }
+        int end = path.indexOf('?');
+        return root.match(path, 1, end < 0 ? path.length() : end, bit);
+    }
+
+    private static int methodBit(String method) {
+        if (method == null) return 0;
+        switch (method) {
+            case "GET": return 1;
+            case "HEAD": return 1 << 1;
+            case "POST": return 1 << 2;
+            case "PUT": return 1 << 3;
+            case "PATCH": return 1 << 4;
+            case "DELETE": return 1 << 5;
+            case "OPTIONS": return 1 << 6;
+            case "TRACE": return 1 << 7;
+            default: return 0;
+        }
+    }
+
+    private static final class Node {
+        private static final String[] NO_LABELS = new String[0];
+        private static final Node[] NO_NODES = new Node[0];
+
+        String[] labels = NO_LABELS;
+        Node[] literals = NO_NODES;
+        Node digits;      // {name:\d+}
+        Node segment;     // {name}
+        int exactMethods; // routes ending at this node
+        int tailMethods;  // routes ending at this node with /**
+
+        void insert(String pattern, int methods) {
+            if (!pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Route pattern must start with '/': " + pattern);
+            }
+            Node node = this;
+            String[] parts = pattern.substring(1).split("/", -1);
+            for (int i = 0; i < parts.length; i++) {
+                String part = parts[i];
+                if (part.equals("**")) {
+                    if (i != parts.length - 1) {
+                        throw new IllegalArgumentException("'**' is only supported at the end: " + pattern);
+                    }
+                    node.tailMethods |= methods;
+                    return;
+                }
+                node = node.child(part, pattern);
+            }
+            node.exactMethods |= methods;
+        }
+
+        private Node child(String part, String pattern) {
+            if (part.startsWith("{") && part.endsWith("}")) {
+                int colon = part.indexOf(':');
+                if (colon < 0) {
+                    if (segment == null) segment = new Node();
+                    return segment;
+                }
+                if (part.substring(colon + 1, part.length() - 1).equals("\\d+")) {
+                    if (digits == null) digits = new Node();
+                    return digits;
+                }
+                throw new IllegalArgumentException("Unsupported placeholder " + part + " in " + pattern);
+            }
+            if (part.isEmpty() || part.indexOf('*') >= 0 || part.indexOf('{') >= 0) {
+                throw new IllegalArgumentException("Unsupported segment '" + part + "' in " + pattern);
+            }
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i].equals(part)) return literals[i];
+            }
+            labels = Arrays.copyOf(labels, labels.length + 1);
+            literals = Arrays.copyOf(literals, literals.length + 1);
+            labels[labels.length - 1] = part;
+            literals[literals.length - 1] = new Node();
+            return literals[literals.length - 1];
+        }
+
+        // Matches path[start, end), which is what follows this node's '/'
+        boolean match(String path, int start, int end, int bit) {
+            if ((tailMethods & bit) != 0) {
+                return true;
+            }
+            if (start > end) {
+                // Consumed the whole path: we are the node the last segment led to
+                return (exactMethods & bit) != 0;
+            }
+
+            int slash = path.indexOf('/', start);
+            int segEnd = slash < 0 || slash > end ? end : slash;
+            int segLen = segEnd - start;
+            if (segLen == 0) {
+                return false; // empty segment ("//" or trailing slash)
+            }
+            int next = segEnd + 1;
+
+            for (int i = 0; i < labels.length; i++) {
+                String label = labels[i];
+                if (label.length() == segLen && path.regionMatches(start, label, 0, segLen)) {
+                    if (literals[i].match(path, next, end, bit)) return true;
+                    break;
+                }
+            }
+            if (digits != null && allDigits(path, start, segEnd) && digits.match(path, next, end, bit)) {
+                return true;
+            }
+            return segment != null && segment.match(path, next, end, bit);
+        }
+
+        private static boolean allDigits(String path, int from, int to) {
+            for (int i = from; i < to; i++) {
+                char c = path.charAt(i);
+                if (c < '0' || c > '9') return false;
+            }
+            return true;
+        }
+    }
+}
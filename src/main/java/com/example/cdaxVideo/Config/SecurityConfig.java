@@ -50,76 +50,14 @@ public class SecurityConfig {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             
             // Configure authorization
-            .authorizeHttpRequests(authz -> authz
+            .authorizeHttpRequests(authz -> {
                 // =============== PUBLIC ENDPOINTS ===============
-                // Allow all OPTIONS requests (CORS preflight)
-                .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                
-                // Debug endpoints
-                .requestMatchers("/api/debug/**").permitAll()
-                .requestMatchers("/api/public/**").permitAll()
-                
-                // ============ AUTHENTICATION ENDPOINTS ============
-                .requestMatchers(
-                    "/api/auth/login",
-                    "/api/auth/register",
-                    "/api/auth/jwt/login",
-                    "/api/auth/jwt/register",
-                    "/api/auth/jwt/validate",
-                    "/api/auth/jwt/refresh",
-                    "/api/auth/forgot-password",
-                    "/api/auth/reset-password",
-                    "/api/auth/verify-email",
-                    "/api/auth/firstName",
-                    "/api/auth/getUserByEmail"
-                ).permitAll()
-                
-                // Public file access
-                .requestMatchers("/uploads/**").permitAll()
-                
-                // Public course endpoints
-                .requestMatchers("/api/courses/public/**").permitAll()
-                .requestMatchers(HttpMethod.GET, "/api/courses").permitAll()
-                .requestMatchers(HttpMethod.GET, "/api/courses/{id}").permitAll()
-                
-                // ============ MODULE ENDPOINTS ============
-                .requestMatchers(HttpMethod.GET, "/api/modules/{id}").permitAll()
-                .requestMatchers(HttpMethod.GET, "/api/modules/course/{courseId}").permitAll()
-                .requestMatchers(HttpMethod.GET, "/api/modules/{moduleId}/videos").permitAll()
-                .requestMatchers(HttpMethod.GET, "/api/modules/{moduleId}/assessments").permitAll()
-                
-                // ============ ASSESSMENT ENDPOINTS ============
-                .requestMatchers(HttpMethod.GET, "/api/course/assessment/**").permitAll()
-                .requestMatchers(HttpMethod.GET, "/api/assessments/**").permitAll()
-                .requestMatchers(HttpMethod.GET, "/api/course/assessment/status").permitAll()
-                .requestMatchers(HttpMethod.GET, "/api/course/assessment/can-attempt").permitAll()
-                .requestMatchers(HttpMethod.GET, "/api/course/assessment/questions").permitAll()
-                .requestMatchers(HttpMethod.GET,"/api/courses/advanced-search").permitAll()
-                .requestMatchers(HttpMethod.GET,"/api/courses/search/suggestions").permitAll()
-                .requestMatchers(HttpMethod.GET,"/api/courses/tags/popular").permitAll()
-                .requestMatchers(HttpMethod.GET,"/api/courses/tag/{tagName}").permitAll()
-                
-                // Test endpoints
-                .requestMatchers(HttpMethod.GET, "/api/test/**").permitAll()
-                
-                // Public video endpoints
-                .requestMatchers("/api/videos/public/**").permitAll()
-                
-                // Legacy public endpoints
-                .requestMatchers("/api/dashboard/public").permitAll()
-                
-                // Swagger/OpenAPI
-                .requestMatchers(
-                    "/swagger-ui/**",
-                    "/v3/api-docs/**",
-                    "/swagger-ui.html",
-                    "/webjars/**",
-                    "/swagger-resources/**"
-                ).permitAll()
-                
-                // Actuator endpoints
-                .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                // Shared with JwtRequestFilter, see PublicRoutes
+                for (PublicRoutes.Route route : PublicRoutes.ROUTES) {
+                    authz.requestMatchers(route.method(), route.pattern()).permitAll();
+                }
                 
+                authz
                 // ============ AUTHENTICATED ENDPOINTS ============
                 // Assessment submissions require authentication
                 .requestMatchers(HttpMethod.POST, "/api/modules/{moduleId}/assessments").authenticated()
@@ -160,8 +98,8 @@ public class SecurityConfig {
                 .requestMatchers("/api/users/**").authenticated()
                 
                 // Default - all other requests require authentication
-                .anyRequest().authenticated()
-            );
+                .anyRequest().authenticated();
+            });
         
         // Add JWT filter before Spring Security's authentication filter
         http.addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,70 @@
+package com.example.cdaxVideo.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * "Revoked or disabled since" timestamps per user, used by the stateless JWT mode.
+ *
+ * A token issued at or before its user's timestamp is rejected. The map is bounded: when an
+ * entry is evicted its timestamp is folded into a floor, and any token issued at or before
+ * the floor is reported as {@link Status#UNKNOWN} so the filter falls back to loading the
+ * user from the database. Nothing is ever forgotten, it only becomes slower to check.
+ *
+ * The registry is per instance; with several instances behind a load balancer every
+ * instance has to be told about a revocation.
+ *
+ * Every path that deletes or disables a user, or changes their role or password, must call
+ * {@link #revokeUser}; until such paths exist {@code jwt.stateless} stays off and the
+ * registry is not consulted.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    public enum Status { VALID, REVOKED, UNKNOWN }
+
+    private final int maxEntries;
+    private final Map<Long, Long> revokedSince;
+    private long evictedFloor = Long.MIN_VALUE;
+
+    public TokenRevocationRegistry(@Value("${jwt.revocation.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.revokedSince = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                if (size() <= TokenRevocationRegistry.this.maxEntries) {
+                    return false;
+                }
+                evictedFloor = Math.max(evictedFloor, eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /** Invalidate every token issued to the user up to now (logout everywhere, disable, role change). */
+    public synchronized void revokeUser(Long userId) {
+        if (userId == null) return;
+        revokedSince.put(userId, System.currentTimeMillis());
+    }
+
+    public synchronized Status check(Long userId, Instant issuedAt) {
+        if (userId == null || issuedAt == null) {
+            return Status.UNKNOWN;
+        }
+        // iat is truncated to the second, so a token issued just after a revocation may
+        // still be rejected; that errs on the safe side
+        long issued = issuedAt.toEpochMilli();
+        Long since = revokedSince.get(userId);
+        if (since != null && issued <= since) {
+            return Status.REVOKED;
+        }
+        if (issued <= evictedFloor) {
+            return Status.UNKNOWN;
+        }
+        return Status.VALID;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.cdaxVideo.Config;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * The claims of a token whose signature and expiry have been checked.
+ * {@code userId} and {@code role} are null for tokens issued without them.
+ */
+public record VerifiedClaims(String subject, Long userId, String role, Instant issuedAt, Instant expiresAt) {
+
+    static VerifiedClaims of(Claims claims) {
+        return new VerifiedClaims(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.get("role", String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
@@ -1,5 +1,6 @@
     package com.example.cdaxVideo.Controller;
 
+    import com.example.cdaxVideo.DTO.BulkAssessmentSubmitRequestDTO;
     import com.example.cdaxVideo.DTO.CourseResponseDTO;
     import com.example.cdaxVideo.DTO.ModuleResponseDTO;
     import com.example.cdaxVideo.DTO.StreakDayDTO;
@@ -13,16 +14,24 @@
     import com.example.cdaxVideo.Entity.Module;
     import com.example.cdaxVideo.Repository.UserCoursePurchaseRepository;
     import com.example.cdaxVideo.Service.CourseService;
+    import com.example.cdaxVideo.Service.Catalog.CourseFacetIndex;
+    import com.example.cdaxVideo.Service.Grading.BulkGradingService;
     import com.example.cdaxVideo.Service.StreakService;
+    import com.example.cdaxVideo.Service.ActivityCalendarService;
+    import com.fasterxml.jackson.databind.ObjectMapper;
+    import java.io.IOException;
+    import java.io.UncheckedIOException;
     import java.time.LocalDate;
     import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
     import org.springframework.http.HttpStatus;
+    import org.springframework.http.MediaType;
     import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 import java.util.*;
@@ -53,6 +62,15 @@ private EntityManager entityManager;
         @Autowired
         private StreakService streakService;
 
+        @Autowired
+        private ActivityCalendarService activityCalendarService;
+
+        @Autowired
+        private BulkGradingService bulkGradingService;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
         // ---------------------- COURSE APIs ----------------------
         @PostMapping("/courses")
         public ResponseEntity<Course> createCourse(@RequestBody Course course) {
@@ -81,9 +99,10 @@ private EntityManager entityManager;
             }
 
             if (userId != null) {
+                Set<Long> purchasedIds = new HashSet<>(
+                        userCoursePurchaseRepository.findCourseIdsByUserId(userId));
                 for (Course course : courses) {
-                    boolean isPurchased = userCoursePurchaseRepository
-                            .existsByUserIdAndCourseId(userId, course.getId());
+                    boolean isPurchased = purchasedIds.contains(course.getId());
                     course.setPurchased(isPurchased);
                 }
             }
@@ -104,19 +123,25 @@ private EntityManager entityManager;
                 @RequestParam(required = false) Double maxPrice,
                 @RequestParam(required = false) Double minRating
         ) {
-            List<Course> courses = courseService.advancedSearch(
+            CourseFacetIndex.FacetResult result = courseService.advancedSearchWithFacets(
                 search, category, minPrice, maxPrice, minRating, level);
+            List<Course> courses = courseService.getCoursesByIds(result.courseIds());
             
             if (userId != null) {
+                Set<Long> purchasedIds = new HashSet<>(
+                        userCoursePurchaseRepository.findCourseIdsByUserId(userId));
                 for (Course course : courses) {
-                    boolean isPurchased = userCoursePurchaseRepository
-                            .existsByUserIdAndCourseId(userId, course.getId());
+                    boolean isPurchased = purchasedIds.contains(course.getId());
                     course.setPurchased(isPurchased);
                 }
             }
 
             Map<String, Object> response = new HashMap<>();
             response.put("data", courses);
+            Map<String, Object> facets = new HashMap<>();
+            facets.put("category", result.categoryCounts());
+            facets.put("level", result.levelCounts());
+            response.put("facets", facets);
             return ResponseEntity.ok(response);
         }
 
@@ -151,9 +176,10 @@ private EntityManager entityManager;
             List<Course> courses = courseService.getCoursesByTag(tagName);
             
             if (userId != null) {
+                Set<Long> purchasedIds = new HashSet<>(
+                        userCoursePurchaseRepository.findCourseIdsByUserId(userId));
                 for (Course course : courses) {
-                    boolean isPurchased = userCoursePurchaseRepository
-                            .existsByUserIdAndCourseId(userId, course.getId());
+                    boolean isPurchased = purchasedIds.contains(course.getId());
                     course.setPurchased(isPurchased);
                 }
             }
@@ -164,6 +190,31 @@ private EntityManager entityManager;
         }
 
 
+        // Courses matching several tags: mode=all (AND, default) or mode=any (OR)
+        @GetMapping("/courses/tags/match")
+        public ResponseEntity<Map<String, Object>> getCoursesByTags(
+                @RequestParam List<String> tags,
+                @RequestParam(defaultValue = "all") String mode,
+                @RequestParam(required = false) Long userId
+        ) {
+            boolean matchAll = !"any".equalsIgnoreCase(mode);
+            List<Course> courses = courseService.getCoursesByTags(tags, matchAll);
+            
+            if (userId != null) {
+                Set<Long> purchasedIds = new HashSet<>(
+                        userCoursePurchaseRepository.findCourseIdsByUserId(userId));
+                for (Course course : courses) {
+                    course.setPurchased(purchasedIds.contains(course.getId()));
+                }
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("data", courses);
+            response.put("mode", matchAll ? "all" : "any");
+            return ResponseEntity.ok(response);
+        }
+
+
 @GetMapping("/courses/debug/tags-check")
 public ResponseEntity<Map<String, Object>> debugTagsCheck() {
     Map<String, Object> response = new HashMap<>();
@@ -855,6 +906,36 @@ public ResponseEntity<?> getAssessmentsByModule(@PathVariable Long moduleId) {
             }
         }
         
+        /**
+         * Grade many submissions in one call. Results are streamed back as NDJSON, one line per
+         * submission in request order, as soon as each chunk has been recorded.
+         */
+        @PostMapping(value = "/course/assessment/submit/bulk", produces = "application/x-ndjson")
+        public ResponseEntity<?> submitAssessmentsBulk(@RequestBody BulkAssessmentSubmitRequestDTO request) {
+            List<BulkAssessmentSubmitRequestDTO.Submission> submissions = request.getSubmissions();
+            if (submissions == null || submissions.isEmpty()) {
+                return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                        .body(Map.of("error", "No submissions"));
+            }
+            if (submissions.size() > bulkGradingService.getMaxSubmissions()) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).contentType(MediaType.APPLICATION_JSON)
+                        .body(Map.of("error", "At most " + bulkGradingService.getMaxSubmissions() + " submissions per request"));
+            }
+
+            StreamingResponseBody body = out -> bulkGradingService.gradeAll(submissions, results -> {
+                try {
+                    for (BulkGradingService.SubmissionResult result : results) {
+                        out.write(objectMapper.writeValueAsBytes(result));
+                        out.write('\n');
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+        }
+
         @GetMapping("/course/assessment/status")
         public ResponseEntity<?> getAssessmentStatus(
                 @RequestParam Long userId,
@@ -1142,6 +1223,26 @@ public ResponseEntity<?> getCourseStreakForMonth(
     }
 }
 
+// Full-year activity heatmap from the compact calendar; without courseId all courses are combined
+@GetMapping("/streak/heatmap")
+public ResponseEntity<?> getActivityHeatmap(
+        @RequestParam Long userId,
+        @RequestParam(required = false) Long courseId,
+        @RequestParam(required = false) Integer year) {
+    
+    try {
+        int heatmapYear = year != null ? year : LocalDate.now().getYear();
+        Map<String, Object> heatmap = activityCalendarService.getHeatmap(userId, courseId, heatmapYear);
+        heatmap.put("success", true);
+        return ResponseEntity.ok(heatmap);
+    } catch (Exception e) {
+        return ResponseEntity.badRequest().body(Map.of(
+            "success", false,
+            "error", e.getMessage()
+        ));
+    }
+}
+
 
     // In CourseController.java
 
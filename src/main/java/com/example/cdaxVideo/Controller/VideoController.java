@@ -1,11 +1,13 @@
 package com.example.cdaxVideo.Controller;
 
+import com.example.cdaxVideo.DTO.ProgressSyncRequestDTO;
 import com.example.cdaxVideo.DTO.VideoCompletionRequestDTO;
 import com.example.cdaxVideo.DTO.VideoProgressDTO;
 import com.example.cdaxVideo.Entity.User;
 import com.example.cdaxVideo.Entity.UserVideoProgress;
 import com.example.cdaxVideo.Repository.UserRepository;
 import com.example.cdaxVideo.Service.VideoService;
+import com.example.cdaxVideo.Service.Progress.ProgressIngestService;
 import org.springframework.security.core.Authentication;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,6 +21,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -30,9 +33,11 @@ public class VideoController {
     private static final Logger logger = LoggerFactory.getLogger(VideoController.class);
     
     private final VideoService videoService;
+    private final ProgressIngestService progressIngestService;
 
-    public VideoController(VideoService videoService) {
+    public VideoController(VideoService videoService, ProgressIngestService progressIngestService) {
         this.videoService = videoService;
+        this.progressIngestService = progressIngestService;
     }
 
     /**
@@ -175,7 +180,7 @@ public ResponseEntity<Map<String, Object>> markVideoAsCompleted(
             // Ensure the videoId in path matches the DTO
             progressDTO.setVideoId(videoId);
             
-            UserVideoProgress progress = videoService.updateVideoProgress(progressDTO);
+            VideoProgressDTO progress = progressIngestService.recordProgress(progressDTO);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -209,6 +214,49 @@ public ResponseEntity<Map<String, Object>> markVideoAsCompleted(
         }
     }
 
+    /**
+     * POST /api/videos/progress/batch
+     * Replays progress and completion events recorded offline, for the authenticated user
+     */
+    @PostMapping("/progress/batch")
+    public ResponseEntity<Map<String, Object>> syncVideoProgress(@RequestBody ProgressSyncRequestDTO syncRequest) {
+        
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication == null || !authentication.isAuthenticated()) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("error", "Not authenticated");
+                errorResponse.put("code", "UNAUTHORIZED");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+            }
+            
+            User authenticatedUser = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+            
+            List<ProgressSyncRequestDTO.Event> events = syncRequest.getEvents() != null
+                ? syncRequest.getEvents() : List.of();
+            List<Map<String, Object>> results = videoService.syncProgressBatch(authenticatedUser.getId(), events);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("userId", authenticatedUser.getId());
+            response.put("processed", events.size());
+            response.put("results", results);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (RuntimeException e) {
+            logger.error("Error syncing video progress: {}", e.getMessage());
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
+
     /**
      * GET /api/videos/{videoId}/progress
      * Gets video progress for a user
@@ -0,0 +1,24 @@
+package com.example.cdaxVideo.DTO;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Body of POST /api/course/assessment/submit/bulk: answer sheets collected offline or queued
+ * by the app, each for one user and one assessment.
+ */
+@Data
+public class BulkAssessmentSubmitRequestDTO {
+    private List<Submission> submissions = new ArrayList<>();
+
+    @Data
+    public static class Submission {
+        private Long userId;
+        private Long assessmentId;
+        private Map<Long, String> answers = new HashMap<>(); // question id -> answer
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.cdaxVideo.DTO;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of POST /api/videos/progress/batch: progress and completion events recorded while
+ * offline, oldest first.
+ */
+@Data
+public class ProgressSyncRequestDTO {
+    private List<Event> events = new ArrayList<>();
+
+    @Data
+    public static class Event {
+        private Long videoId;
+        private String type; // "progress" (default) or "complete"
+        private Integer watchedSeconds;
+        private Integer lastPositionSeconds;
+        private Integer forwardJumpsCount;
+
+        public boolean isCompletion() {
+            return "complete".equalsIgnoreCase(type);
+        }
+    }
+}
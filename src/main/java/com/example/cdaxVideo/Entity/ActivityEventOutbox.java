@@ -0,0 +1,52 @@
+package com.example.cdaxVideo.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Streak / activity increments that could not be applied in memory: spilled when the
+ * activity event queue was full, left over at shutdown, or failed to apply. Each row is
+ * already aggregated per (user, course, day) and is replayed once, then deleted.
+ */
+@Entity
+@Table(name = "activity_event_outbox")
+@Data
+@NoArgsConstructor
+public class ActivityEventOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "activity_date", nullable = false)
+    private LocalDate activityDate;
+
+    @Column(name = "watched_seconds", nullable = false)
+    private Integer watchedSeconds = 0;
+
+    @Column(name = "completed_videos", nullable = false)
+    private Integer completedVideos = 0;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public ActivityEventOutbox(Long userId, Long courseId, LocalDate activityDate,
+                               int watchedSeconds, int completedVideos) {
+        this.userId = userId;
+        this.courseId = courseId;
+        this.activityDate = activityDate;
+        this.watchedSeconds = watchedSeconds;
+        this.completedVideos = completedVideos;
+        this.createdAt = LocalDateTime.now();
+    }
+}
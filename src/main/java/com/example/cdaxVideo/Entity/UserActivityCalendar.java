@@ -0,0 +1,47 @@
+package com.example.cdaxVideo.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One year of a user's activity in a course, derived from {@code user_streaks}: bit
+ * {@code dayOfYear - 1} of {@code activeDays} is set for an active day, and byte
+ * {@code dayOfYear - 1} of {@code progressLevels} holds that day's heatmap level (0-5).
+ * Bits are numbered from the least significant bit of the first byte, as in
+ * PostgreSQL {@code set_bit} and {@link java.util.BitSet#valueOf(byte[])}.
+ */
+@Entity
+@Table(name = "user_activity_calendar",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "course_id", "year"}))
+@Data
+@NoArgsConstructor
+public class UserActivityCalendar {
+
+    public static final int DAYS = 366;
+    public static final int BITMAP_BYTES = (DAYS + 7) / 8;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "year", nullable = false)
+    private Integer year;
+
+    @Column(name = "active_days", nullable = false)
+    private byte[] activeDays;
+
+    @Column(name = "progress_levels", nullable = false)
+    private byte[] progressLevels;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,52 @@
+package com.example.cdaxVideo.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress rollup for a user in one purchased course, derived from the video, module and
+ * assessment progress rows. Maintained by {@code CourseProgressRollupService}.
+ */
+@Entity
+@Table(name = "user_course_progress",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "course_id"}))
+@Data
+@NoArgsConstructor
+public class UserCourseProgress {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "completed_videos", nullable = false)
+    private Integer completedVideos = 0;
+
+    // Videos in the course when the row was last computed
+    @Column(name = "total_videos", nullable = false)
+    private Integer totalVideos = 0;
+
+    @Column(name = "completed_modules", nullable = false)
+    private Integer completedModules = 0;
+
+    @Column(name = "passed_assessments", nullable = false)
+    private Integer passedAssessments = 0;
+
+    @Column(name = "progress_percent", nullable = false)
+    private Double progressPercent = 0.0;
+
+    // Latest completion, heartbeat or submission in the course
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
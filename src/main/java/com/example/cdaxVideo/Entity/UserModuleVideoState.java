@@ -0,0 +1,50 @@
+package com.example.cdaxVideo.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's video state in one module as two bitmaps keyed by video position (display
+ * order): bit {@code i} of {@code completedBits} / {@code unlockedBits} is the i-th video.
+ * Bits are numbered as in {@link java.util.BitSet#valueOf(byte[])}.
+ *
+ * A cache over {@code user_video_progress}: {@code layoutHash} and {@code videoCount}
+ * describe the module's video list the bits were built for, and a row whose layout no
+ * longer matches is rebuilt from the progress rows. Maintained by {@code ModuleVideoStateService}.
+ */
+@Entity
+@Table(name = "user_module_video_state",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "module_id"}))
+@Data
+@NoArgsConstructor
+public class UserModuleVideoState {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "module_id", nullable = false)
+    private Long moduleId;
+
+    // hashCode of the ordered video id list; -1 video count marks a placeholder row
+    @Column(name = "layout_hash", nullable = false)
+    private Integer layoutHash = 0;
+
+    @Column(name = "video_count", nullable = false)
+    private Integer videoCount = -1;
+
+    @Column(name = "completed_bits", nullable = false)
+    private byte[] completedBits = new byte[0];
+
+    @Column(name = "unlocked_bits", nullable = false)
+    private byte[] unlockedBits = new byte[0];
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
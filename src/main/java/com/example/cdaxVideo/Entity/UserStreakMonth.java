@@ -0,0 +1,161 @@
+package com.example.cdaxVideo.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A month of {@code user_streaks} day rows for one (user, course), rolled up by the streak
+ * compaction job. Bit {@code day - 1} of {@code activeDays} marks an active day of the
+ * month, and the {@code daily*} columns keep each day's watch time, available time and
+ * completed / total video counts as 31 big-endian ints, so a day can still be shown as it
+ * was before compaction.
+ */
+@Entity
+@Table(name = "user_streak_months",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "course_id", "month_start"}))
+@Data
+@NoArgsConstructor
+public class UserStreakMonth {
+
+    private static final int MAX_DAYS = 31;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "active_days", nullable = false)
+    private Integer activeDays = 0;
+
+    @Column(name = "daily_seconds", nullable = false)
+    private byte[] dailySeconds = new byte[MAX_DAYS * Integer.BYTES];
+
+    // The per-day totals and counts are null for months rolled up before they were kept
+    @Column(name = "daily_available_seconds")
+    private byte[] dailyAvailableSeconds;
+
+    @Column(name = "daily_completed_videos")
+    private byte[] dailyCompletedVideos;
+
+    @Column(name = "daily_total_videos")
+    private byte[] dailyTotalVideos;
+
+    @Column(name = "watched_seconds", nullable = false)
+    private Long watchedSeconds = 0L;
+
+    @Column(name = "completed_videos_count", nullable = false)
+    private Integer completedVideosCount = 0;
+
+    @Column(name = "total_available_seconds", nullable = false)
+    private Integer totalAvailableSeconds = 0;
+
+    @Column(name = "total_videos_count", nullable = false)
+    private Integer totalVideosCount = 0;
+
+    @Column(name = "active_day_count", nullable = false)
+    private Integer activeDayCount = 0;
+
+    @Column(name = "longest_run", nullable = false)
+    private Integer longestRun = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public UserStreakMonth(Long userId, Long courseId, LocalDate monthStart) {
+        this.userId = userId;
+        this.courseId = courseId;
+        this.monthStart = monthStart;
+    }
+
+    // Helper methods
+
+    /** Folds one day row into the month; a day that is already rolled up gets the row's values added. */
+    public void add(UserStreak day) {
+        int index = day.getStreakDate().getDayOfMonth() - 1;
+        int seconds = day.getWatchedSeconds() != null ? day.getWatchedSeconds() : 0;
+        ByteBuffer buffer = ByteBuffer.wrap(dailySeconds);
+        buffer.putInt(index * Integer.BYTES, buffer.getInt(index * Integer.BYTES) + seconds);
+
+        if (Boolean.TRUE.equals(day.getIsActiveDay())) {
+            activeDays |= 1 << index;
+        }
+        watchedSeconds += seconds;
+        int completed = day.getCompletedVideosCount() != null ? day.getCompletedVideosCount() : 0;
+        completedVideosCount += completed;
+        dailyCompletedVideos = merge(dailyCompletedVideos, index, completed, false);
+        if (day.getTotalAvailableSeconds() != null) {
+            totalAvailableSeconds = Math.max(totalAvailableSeconds, day.getTotalAvailableSeconds());
+            dailyAvailableSeconds = merge(dailyAvailableSeconds, index, day.getTotalAvailableSeconds(), true);
+        }
+        if (day.getTotalVideosCount() != null) {
+            totalVideosCount = Math.max(totalVideosCount, day.getTotalVideosCount());
+            dailyTotalVideos = merge(dailyTotalVideos, index, day.getTotalVideosCount(), true);
+        }
+        activeDayCount = Integer.bitCount(activeDays);
+        longestRun = longestRun(activeDays);
+        updatedAt = LocalDateTime.now();
+    }
+
+    public boolean isActiveOn(int dayOfMonth) {
+        return (activeDays & (1 << (dayOfMonth - 1))) != 0;
+    }
+
+    public int secondsOn(int dayOfMonth) {
+        return ByteBuffer.wrap(dailySeconds).getInt((dayOfMonth - 1) * Integer.BYTES);
+    }
+
+    /** The day's own available seconds; the month's maximum where no per-day total was kept. */
+    public int availableSecondsOn(int dayOfMonth) {
+        int available = dayValue(dailyAvailableSeconds, dayOfMonth);
+        return available > 0 ? available : totalAvailableSeconds;
+    }
+
+    /** Videos completed that day; 0 for months rolled up before per-day counts were kept. */
+    public int completedVideosOn(int dayOfMonth) {
+        return dayValue(dailyCompletedVideos, dayOfMonth);
+    }
+
+    /** The day's course video count; the month's maximum where no per-day count was kept. */
+    public int totalVideosOn(int dayOfMonth) {
+        int total = dayValue(dailyTotalVideos, dayOfMonth);
+        return total > 0 ? total : totalVideosCount;
+    }
+
+    private static int dayValue(byte[] days, int dayOfMonth) {
+        return days == null ? 0 : ByteBuffer.wrap(days).getInt((dayOfMonth - 1) * Integer.BYTES);
+    }
+
+    // Adds the value to the day (or keeps the larger one), creating the array on first use
+    private static byte[] merge(byte[] days, int index, int value, boolean keepMax) {
+        if (days == null) {
+            days = new byte[MAX_DAYS * Integer.BYTES];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(days);
+        int current = buffer.getInt(index * Integer.BYTES);
+        buffer.putInt(index * Integer.BYTES, keepMax ? Math.max(current, value) : current + value);
+        return days;
+    }
+
+    private static int longestRun(int mask) {
+        int longest = 0;
+        // Each step shortens every run of ones by one, so the step count is the longest run
+        while (mask != 0) {
+            mask &= mask << 1;
+            longest++;
+        }
+        return longest;
+    }
+}
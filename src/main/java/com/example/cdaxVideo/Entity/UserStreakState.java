@@ -0,0 +1,45 @@
+package com.example.cdaxVideo.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * All-time streak counters for a user in one course, or across all courses when
+ * {@code courseId} is {@link #ALL_COURSES}. Maintained by {@code StreakStateService}.
+ */
+@Entity
+@Table(name = "user_streak_state",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "course_id"}))
+@Data
+@NoArgsConstructor
+public class UserStreakState {
+
+    public static final long ALL_COURSES = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    // Run ending at lastActiveDate; it is over once a whole day passes without activity
+    @Column(name = "current_streak", nullable = false)
+    private Integer currentStreak = 0;
+
+    @Column(name = "longest_streak", nullable = false)
+    private Integer longestStreak = 0;
+
+    @Column(name = "last_active_date")
+    private LocalDate lastActiveDate;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
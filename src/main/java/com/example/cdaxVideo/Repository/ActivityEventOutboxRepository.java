@@ -0,0 +1,20 @@
+package com.example.cdaxVideo.Repository;
+
+import com.example.cdaxVideo.Entity.ActivityEventOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ActivityEventOutboxRepository extends JpaRepository<ActivityEventOutbox, Long> {
+
+    List<ActivityEventOutbox> findAllByOrderByIdAsc(Pageable pageable);
+
+    // Deleting first claims the row: a concurrent replayer blocks on the row lock and then sees 0
+    @Modifying
+    @Query("DELETE FROM ActivityEventOutbox o WHERE o.id = :id")
+    int claim(@Param("id") Long id);
+}
@@ -57,6 +57,20 @@ public interface ModuleRepository extends JpaRepository<Module, Long> {
     @Query("SELECT COUNT(m) FROM Module m WHERE m.course.id = :courseId")
     Long countByCourseId(@Param("courseId") Long courseId);
     
+    // Video count and total seconds per module, modules without videos included (course aggregates)
+    @Query("SELECT m.course.id, m.id, COUNT(v.id), COALESCE(SUM(v.duration), 0) FROM Module m " +
+           "LEFT JOIN m.videos v " +
+           "GROUP BY m.course.id, m.id " +
+           "ORDER BY m.course.id, m.id")
+    List<Object[]> findVideoTotalsPerModule();
+    
+    @Query("SELECT m.course.id, m.id, COUNT(v.id), COALESCE(SUM(v.duration), 0) FROM Module m " +
+           "LEFT JOIN m.videos v " +
+           "WHERE m.course.id = :courseId " +
+           "GROUP BY m.course.id, m.id " +
+           "ORDER BY m.id")
+    List<Object[]> findVideoTotalsPerModuleByCourseId(@Param("courseId") Long courseId);
+    
     // ✅ 6. Check if module exists in course
     @Query("SELECT CASE WHEN COUNT(m) > 0 THEN true ELSE false END " +
            "FROM Module m WHERE m.id = :moduleId AND m.course.id = :courseId")
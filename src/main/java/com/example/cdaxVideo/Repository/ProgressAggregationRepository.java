@@ -0,0 +1,54 @@
+package com.example.cdaxVideo.Repository;
+
+import com.example.cdaxVideo.Entity.UserModuleProgress;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-only progress rollups for one user, computed in the database.
+ */
+public interface ProgressAggregationRepository extends Repository<UserModuleProgress, Long> {
+
+    /**
+     * One row per module of the given courses, ordered by course and module:
+     * {courseId, moduleId, totalVideos, completedVideos, moduleMarkedCompleted, moduleUnlocked,
+     * assessmentCount, allAssessmentsPassed, lastAssessmentPassed, lastAssessmentScore}.
+     *
+     * Module progress is unique per (user, module), so joining it does not multiply the video
+     * rows. Assessments are folded per module in a lateral subquery; "last" means the assessment
+     * with the highest id. Missing progress rows count as not completed / not passed / 0%.
+     */
+    @Query(value =
+        "SELECT m.course_id, m.id, " +
+        "       COUNT(v.id) AS total_videos, " +
+        "       COUNT(v.id) FILTER (WHERE uvp.completed) AS completed_videos, " +
+        "       COALESCE(BOOL_OR(ump.completed), false) AS module_completed, " +
+        "       COALESCE(BOOL_OR(ump.unlocked), false) AS module_unlocked, " +
+        "       MAX(a.assessment_count) AS assessment_count, " +
+        "       COALESCE(BOOL_OR(a.all_passed), false) AS all_passed, " +
+        "       COALESCE(BOOL_OR(a.last_passed), false) AS last_passed, " +
+        "       COALESCE(MAX(a.last_score), 0) AS last_score " +
+        "FROM module m " +
+        "LEFT JOIN videos v ON v.module_id = m.id " +
+        "LEFT JOIN user_video_progress uvp ON uvp.video_id = v.id AND uvp.user_id = :userId " +
+        "LEFT JOIN user_module_progress ump ON ump.module_id = m.id AND ump.user_id = :userId " +
+        "LEFT JOIN LATERAL ( " +
+        "    SELECT COUNT(*) AS assessment_count, " +
+        "           BOOL_AND(COALESCE(uap.passed, false)) AS all_passed, " +
+        "           (ARRAY_AGG(COALESCE(uap.passed, false) ORDER BY a2.id DESC))[1] AS last_passed, " +
+        "           (ARRAY_AGG(COALESCE(uap.percentage, 0) ORDER BY a2.id DESC))[1] AS last_score " +
+        "    FROM assessment a2 " +
+        "    LEFT JOIN user_assessment_progress uap ON uap.assessment_id = a2.id AND uap.user_id = :userId " +
+        "    WHERE a2.module_id = m.id " +
+        ") a ON true " +
+        "WHERE m.course_id IN (:courseIds) " +
+        "GROUP BY m.course_id, m.id " +
+        "ORDER BY m.course_id, m.id",
+        nativeQuery = true)
+    List<Object[]> findModuleProgress(@Param("userId") Long userId,
+                                      @Param("courseIds") Collection<Long> courseIds);
+}
@@ -3,8 +3,16 @@ package com.example.cdaxVideo.Repository;
 
 import com.example.cdaxVideo.Entity.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
 public interface QuestionRepository extends JpaRepository<Question, Long> {
     List<Question> findByAssessmentId(Long assessmentId);
+
+    // Answer key only: {questionId, correctAnswer, marks}, by question id
+    @Query("SELECT q.id, q.correctAnswer, q.marks FROM Question q " +
+           "WHERE q.assessment.id = :assessmentId ORDER BY q.id")
+    List<Object[]> findAnswerKeyByAssessmentId(@Param("assessmentId") Long assessmentId);
 }
@@ -0,0 +1,50 @@
+package com.example.cdaxVideo.Repository;
+
+import com.example.cdaxVideo.Entity.UserActivityCalendar;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UserActivityCalendarRepository extends JpaRepository<UserActivityCalendar, Long> {
+
+    List<UserActivityCalendar> findByUserIdAndYear(Long userId, Integer year);
+
+    /**
+     * Copies one day of {@code user_streaks} into the year's calendar row, creating the row
+     * if needed. The level thresholds match {@code ActivityCalendarService.levelFor}.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_activity_calendar (user_id, course_id, year, active_days, " +
+           "progress_levels, updated_at) " +
+           "SELECT s.user_id, s.course_id, :year, " +
+           "set_bit(decode(repeat('00', 46), 'hex'), :dayIndex, CASE WHEN s.is_active_day THEN 1 ELSE 0 END), " +
+           "set_byte(decode(repeat('00', 366), 'hex'), :dayIndex, CASE " +
+           "    WHEN s.progress_percentage IS NULL OR s.progress_percentage = 0 THEN 0 " +
+           "    WHEN s.progress_percentage < 25 THEN 1 " +
+           "    WHEN s.progress_percentage < 50 THEN 2 " +
+           "    WHEN s.progress_percentage < 75 THEN 3 " +
+           "    WHEN s.progress_percentage < 100 THEN 4 " +
+           "    ELSE 5 END), " +
+           "now() " +
+           "FROM user_streaks s WHERE s.user_id = :userId AND s.course_id = :courseId AND s.streak_date = :day " +
+           "ON CONFLICT (user_id, course_id, year) DO UPDATE SET " +
+           "active_days = set_bit(user_activity_calendar.active_days, :dayIndex, " +
+           "    get_bit(EXCLUDED.active_days, :dayIndex)), " +
+           "progress_levels = set_byte(user_activity_calendar.progress_levels, :dayIndex, " +
+           "    get_byte(EXCLUDED.progress_levels, :dayIndex)), " +
+           "updated_at = now()",
+           nativeQuery = true)
+    int copyDayFromStreak(@Param("userId") Long userId,
+                          @Param("courseId") Long courseId,
+                          @Param("day") LocalDate day,
+                          @Param("year") int year,
+                          @Param("dayIndex") int dayIndex);
+}
@@ -35,4 +35,26 @@ public interface UserAssessmentProgressRepository extends JpaRepository<UserAsse
     
     @Query("SELECT uap FROM UserAssessmentProgress uap WHERE uap.user.id = :userId AND uap.assessment.id = :assessmentId AND uap.passed = true")
     Optional<UserAssessmentProgress> findPassedAssessment(@Param("userId") Long userId, @Param("assessmentId") Long assessmentId);
-}
\ No newline at end of file
+
+    // Assessment flags keyed by module for a whole course in one statement (progress overlay)
+    @Query("SELECT uap.assessment.module.id, uap.unlocked, uap.passed FROM UserAssessmentProgress uap " +
+           "WHERE uap.user.id = :userId AND uap.assessment.module.course.id = :courseId")
+    List<Object[]> findFlagsByUserIdAndCourseId(@Param("userId") Long userId, @Param("courseId") Long courseId);
+
+    /**
+     * One row: user exists, completed videos of the module, then the assessment progress columns
+     * (unlocked, passed, attempts, obtained_marks, total_marks, percentage, submitted_on, passed_on,
+     * unlocked_on), all null if the user has no progress row yet.
+     */
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM users WHERE id = :userId), " +
+           "       (SELECT COUNT(*) FROM user_video_progress uvp JOIN videos v ON v.id = uvp.video_id " +
+           "        WHERE uvp.user_id = :userId AND v.module_id = :moduleId AND uvp.completed), " +
+           "       uap.unlocked, uap.passed, uap.attempts, uap.obtained_marks, uap.total_marks, " +
+           "       uap.percentage, uap.submitted_on, uap.passed_on, uap.unlocked_on " +
+           "FROM (SELECT 1) one " +
+           "LEFT JOIN user_assessment_progress uap ON uap.user_id = :userId AND uap.assessment_id = :assessmentId",
+           nativeQuery = true)
+    List<Object[]> findEligibilityRow(@Param("userId") Long userId,
+                                      @Param("moduleId") Long moduleId,
+                                      @Param("assessmentId") Long assessmentId);
+}
@@ -0,0 +1,106 @@
+package com.example.cdaxVideo.Repository;
+
+import com.example.cdaxVideo.Entity.UserCourseProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserCourseProgressRepository extends JpaRepository<UserCourseProgress, Long> {
+
+    // Rollup columns for each (user_id, course_id) row of the derived table "p"
+    String ROLLUP_SELECT =
+        "INSERT INTO user_course_progress (user_id, course_id, completed_videos, total_videos, " +
+        "completed_modules, passed_assessments, progress_percent, last_activity_at, updated_at) " +
+        "SELECT p.user_id, p.course_id, vp.completed_videos, vp.total_videos, mp.completed_modules, " +
+        "       ap.passed_assessments, " +
+        "       CASE WHEN vp.total_videos = 0 THEN 0 ELSE vp.completed_videos * 100.0 / vp.total_videos END, " +
+        "       GREATEST(vp.last_activity, mp.last_activity, ap.last_activity), now() ";
+
+    String ROLLUP_JOINS =
+        "CROSS JOIN LATERAL ( " +
+        "    SELECT COUNT(v.id) AS total_videos, " +
+        "           COUNT(v.id) FILTER (WHERE uvp.completed) AS completed_videos, " +
+        "           MAX(GREATEST(uvp.completed_on, uvp.last_updated_at)) AS last_activity " +
+        "    FROM module m JOIN videos v ON v.module_id = m.id " +
+        "    LEFT JOIN user_video_progress uvp ON uvp.video_id = v.id AND uvp.user_id = p.user_id " +
+        "    WHERE m.course_id = p.course_id) vp " +
+        "CROSS JOIN LATERAL ( " +
+        "    SELECT COUNT(*) FILTER (WHERE ump.completed) AS completed_modules, " +
+        "           MAX(GREATEST(ump.completed_on, ump.assessment_passed_on)) AS last_activity " +
+        "    FROM user_module_progress ump JOIN module m ON m.id = ump.module_id " +
+        "    WHERE ump.user_id = p.user_id AND m.course_id = p.course_id) mp " +
+        "CROSS JOIN LATERAL ( " +
+        "    SELECT COUNT(*) FILTER (WHERE uap.passed) AS passed_assessments, " +
+        "           MAX(uap.submitted_on) AS last_activity " +
+        "    FROM user_assessment_progress uap " +
+        "    JOIN assessment a ON a.id = uap.assessment_id JOIN module m ON m.id = a.module_id " +
+        "    WHERE uap.user_id = p.user_id AND m.course_id = p.course_id) ap ";
+
+    // Only rows whose counts actually changed are written (and counted)
+    String ROLLUP_UPSERT =
+        "ON CONFLICT (user_id, course_id) DO UPDATE SET " +
+        "completed_videos = EXCLUDED.completed_videos, total_videos = EXCLUDED.total_videos, " +
+        "completed_modules = EXCLUDED.completed_modules, passed_assessments = EXCLUDED.passed_assessments, " +
+        "progress_percent = EXCLUDED.progress_percent, last_activity_at = EXCLUDED.last_activity_at, " +
+        "updated_at = now() " +
+        "WHERE (user_course_progress.completed_videos, user_course_progress.total_videos, " +
+        "       user_course_progress.completed_modules, user_course_progress.passed_assessments, " +
+        "       user_course_progress.last_activity_at) " +
+        "  IS DISTINCT FROM (EXCLUDED.completed_videos, EXCLUDED.total_videos, EXCLUDED.completed_modules, " +
+        "       EXCLUDED.passed_assessments, EXCLUDED.last_activity_at)";
+
+    List<UserCourseProgress> findByUserIdOrderByCourseId(Long userId);
+
+    /**
+     * Recomputes the row for one purchased course from the progress tables, in the caller's
+     * transaction. Does nothing if the user has not purchased the course.
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = ROLLUP_SELECT +
+           "FROM (SELECT DISTINCT user_id, course_id FROM user_course_purchase " +
+           "      WHERE user_id = :userId AND course_id = :courseId) p " +
+           ROLLUP_JOINS + ROLLUP_UPSERT,
+           nativeQuery = true)
+    int refresh(@Param("userId") Long userId, @Param("courseId") Long courseId);
+
+    /** Recomputes the rows of every purchaser of the course, e.g. after its videos changed. */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = ROLLUP_SELECT +
+           "FROM (SELECT DISTINCT user_id, course_id FROM user_course_purchase WHERE course_id = :courseId) p " +
+           ROLLUP_JOINS + ROLLUP_UPSERT,
+           nativeQuery = true)
+    int refreshCourse(@Param("courseId") Long courseId);
+
+    /** Recomputes all rows of the given users; returns how many were missing or differed. */
+    @Modifying
+    @Transactional
+    @Query(value = ROLLUP_SELECT +
+           "FROM (SELECT DISTINCT user_id, course_id FROM user_course_purchase WHERE user_id IN (:userIds)) p " +
+           ROLLUP_JOINS + ROLLUP_UPSERT,
+           nativeQuery = true)
+    int reconcileUsers(@Param("userIds") Collection<Long> userIds);
+
+    /** Drops rows of the given users for courses they no longer own. */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_course_progress ucp WHERE ucp.user_id IN (:userIds) " +
+           "AND NOT EXISTS (SELECT 1 FROM user_course_purchase p " +
+           "                WHERE p.user_id = ucp.user_id AND p.course_id = ucp.course_id)",
+           nativeQuery = true)
+    int deleteOrphans(@Param("userIds") Collection<Long> userIds);
+
+    /** Next page of purchasing users, by id, for the reconciler. */
+    @Query(value = "SELECT DISTINCT user_id FROM user_course_purchase WHERE user_id > :afterUserId " +
+           "ORDER BY user_id LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findPurchasingUserIdsAfter(@Param("afterUserId") Long afterUserId, @Param("limit") int limit);
+}
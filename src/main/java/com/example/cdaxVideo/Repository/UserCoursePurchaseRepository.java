@@ -31,4 +31,7 @@ public interface UserCoursePurchaseRepository extends JpaRepository<UserCoursePu
     
     @Query("SELECT u FROM UserCoursePurchase u WHERE u.user.id = :userId")
     List<UserCoursePurchase> findByUserIdWithQuery(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    @Query("SELECT u.course.id FROM UserCoursePurchase u WHERE u.user.id = :userId")
+    List<Long> findCourseIdsByUserId(@Param("userId") Long userId);
+}
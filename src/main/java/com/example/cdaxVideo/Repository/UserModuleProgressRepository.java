@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserModuleProgressRepository extends JpaRepository<UserModuleProgress, Long> {
@@ -23,4 +24,10 @@ public interface UserModuleProgressRepository extends JpaRepository<UserModulePr
            "WHERE ump.user.id = :userId AND m.course.id = :courseId AND ump.completed = true")
     Long countCompletedModulesByUserAndCourse(@Param("userId") Long userId, 
                                               @Param("courseId") Long courseId);
-}
\ No newline at end of file
+
+    // Module unlock flags for a whole course in one statement (progress overlay)
+    @Query("SELECT ump.module.id, ump.unlocked FROM UserModuleProgress ump " +
+           "WHERE ump.user.id = :userId AND ump.module.course.id = :courseId")
+    List<Object[]> findUnlockFlagsByUserIdAndCourseId(@Param("userId") Long userId,
+                                                      @Param("courseId") Long courseId);
+}
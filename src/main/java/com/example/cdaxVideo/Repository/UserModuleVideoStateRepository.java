@@ -0,0 +1,35 @@
+package com.example.cdaxVideo.Repository;
+
+import com.example.cdaxVideo.Entity.UserModuleVideoState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface UserModuleVideoStateRepository extends JpaRepository<UserModuleVideoState, Long> {
+
+    /** Locks the row, so transitions for the same user and module run one at a time. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserModuleVideoState s WHERE s.userId = :userId AND s.moduleId = :moduleId")
+    Optional<UserModuleVideoState> findForUpdate(@Param("userId") Long userId, @Param("moduleId") Long moduleId);
+
+    /**
+     * Creates an empty placeholder row unless one exists, so a first transition has a row
+     * to lock. The placeholder's layout never matches, so it is rebuilt on first use.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_module_video_state (user_id, module_id, layout_hash, video_count, " +
+           "completed_bits, unlocked_bits, updated_at) " +
+           "VALUES (:userId, :moduleId, 0, -1, decode('', 'hex'), decode('', 'hex'), now()) " +
+           "ON CONFLICT (user_id, module_id) DO NOTHING",
+           nativeQuery = true)
+    int insertPlaceholder(@Param("userId") Long userId, @Param("moduleId") Long moduleId);
+}
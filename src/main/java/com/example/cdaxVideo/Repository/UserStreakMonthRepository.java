@@ -0,0 +1,19 @@
+package com.example.cdaxVideo.Repository;
+
+import com.example.cdaxVideo.Entity.UserStreakMonth;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserStreakMonthRepository extends JpaRepository<UserStreakMonth, Long> {
+
+    Optional<UserStreakMonth> findByUserIdAndCourseIdAndMonthStart(Long userId, Long courseId, LocalDate monthStart);
+
+    List<UserStreakMonth> findByUserIdInAndMonthStartBetween(Collection<Long> userIds,
+                                                              LocalDate fromMonth, LocalDate toMonth);
+}
@@ -1,10 +1,15 @@
 package com.example.cdaxVideo.Repository;
 
 import com.example.cdaxVideo.Entity.UserStreak;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -28,6 +33,12 @@ public interface UserStreakRepository extends JpaRepository<UserStreak, Long> {
         @Param("courseId") Long courseId,
         @Param("startDate") LocalDate startDate);
     
+    // Oldest day rows first, locked so no upsert lands between rolling them up and deleting them
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT us FROM UserStreak us WHERE us.streakDate < :cutoff " +
+           "ORDER BY us.userId, us.courseId, us.streakDate")
+    List<UserStreak> findOlderThanForUpdate(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+    
     @Query("SELECT COUNT(DISTINCT us.streakDate) FROM UserStreak us " +
            "WHERE us.user.id = :userId AND us.streakDate BETWEEN :startDate AND :endDate " +
            "AND us.isActiveDay = true")
@@ -35,4 +46,44 @@ public interface UserStreakRepository extends JpaRepository<UserStreak, Long> {
         @Param("userId") Long userId,
         @Param("startDate") LocalDate startDate,
         @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+    
+    /**
+     * Adds watch time and completed videos to the user's row for the day in one statement,
+     * creating the row if needed. Increments happen in SQL, so concurrent calls never lose
+     * one; progress_percentage and is_active_day are derived the same way the entity's
+     * lifecycle callbacks derive them. Course totals are only taken when the row has none.
+     * Returns 0 when the user or course does not exist.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_streaks (user_id, course_id, streak_date, watched_seconds, " +
+           "total_available_seconds, progress_percentage, completed_videos_count, total_videos_count, " +
+           "is_active_day, created_at, updated_at) " +
+           "SELECT u.id, c.id, :streakDate, :watchedDelta, :totalSeconds, " +
+           "CASE WHEN :totalSeconds > 0 THEN :watchedDelta * 100.0 / :totalSeconds ELSE 0 END, " +
+           ":completedDelta, :totalVideos, :watchedDelta > 0, now(), now() " +
+           "FROM users u, courses c WHERE u.id = :userId AND c.id = :courseId " +
+           "ON CONFLICT (user_id, course_id, streak_date) DO UPDATE SET " +
+           "watched_seconds = user_streaks.watched_seconds + EXCLUDED.watched_seconds, " +
+           "completed_videos_count = user_streaks.completed_videos_count + EXCLUDED.completed_videos_count, " +
+           "total_available_seconds = CASE WHEN user_streaks.total_available_seconds > 0 " +
+           "    THEN user_streaks.total_available_seconds ELSE EXCLUDED.total_available_seconds END, " +
+           "total_videos_count = CASE WHEN user_streaks.total_videos_count > 0 " +
+           "    THEN user_streaks.total_videos_count ELSE EXCLUDED.total_videos_count END, " +
+           "progress_percentage = CASE " +
+           "    WHEN user_streaks.total_available_seconds > 0 " +
+           "        THEN (user_streaks.watched_seconds + EXCLUDED.watched_seconds) * 100.0 / user_streaks.total_available_seconds " +
+           "    WHEN EXCLUDED.total_available_seconds > 0 " +
+           "        THEN (user_streaks.watched_seconds + EXCLUDED.watched_seconds) * 100.0 / EXCLUDED.total_available_seconds " +
+           "    ELSE user_streaks.progress_percentage END, " +
+           "is_active_day = (user_streaks.watched_seconds + EXCLUDED.watched_seconds) > 0, " +
+           "updated_at = now()",
+           nativeQuery = true)
+    int upsertDailyProgress(@Param("userId") Long userId,
+                            @Param("courseId") Long courseId,
+                            @Param("streakDate") LocalDate streakDate,
+                            @Param("watchedDelta") int watchedDelta,
+                            @Param("completedDelta") int completedDelta,
+                            @Param("totalSeconds") int totalSeconds,
+                            @Param("totalVideos") int totalVideos);
+}
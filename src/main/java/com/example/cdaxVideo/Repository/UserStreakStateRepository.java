@@ -0,0 +1,74 @@
+package com.example.cdaxVideo.Repository;
+
+import com.example.cdaxVideo.Entity.UserStreakState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserStreakStateRepository extends JpaRepository<UserStreakState, Long> {
+
+    Optional<UserStreakState> findByUserIdAndCourseId(Long userId, Long courseId);
+
+    List<UserStreakState> findByUserId(Long userId);
+
+    /**
+     * Records {@code day} as active in one statement. The day after the last active day
+     * extends the run, the same day is a no-op, a later day starts a new run of 1, and an
+     * earlier day (a late event) leaves the counters alone.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_streak_state (user_id, course_id, current_streak, longest_streak, " +
+           "last_active_date, updated_at) " +
+           "SELECT u.id, :courseId, 1, 1, :day, now() FROM users u WHERE u.id = :userId " +
+           "ON CONFLICT (user_id, course_id) DO UPDATE SET " +
+           "current_streak = CASE " +
+           "    WHEN user_streak_state.last_active_date >= EXCLUDED.last_active_date THEN user_streak_state.current_streak " +
+           "    WHEN user_streak_state.last_active_date = EXCLUDED.last_active_date - 1 THEN user_streak_state.current_streak + 1 " +
+           "    ELSE 1 END, " +
+           "longest_streak = GREATEST(user_streak_state.longest_streak, CASE " +
+           "    WHEN user_streak_state.last_active_date >= EXCLUDED.last_active_date THEN user_streak_state.current_streak " +
+           "    WHEN user_streak_state.last_active_date = EXCLUDED.last_active_date - 1 THEN user_streak_state.current_streak + 1 " +
+           "    ELSE 1 END), " +
+           "last_active_date = GREATEST(user_streak_state.last_active_date, EXCLUDED.last_active_date), " +
+           "updated_at = now()",
+           nativeQuery = true)
+    int recordActiveDay(@Param("userId") Long userId,
+                        @Param("courseId") Long courseId,
+                        @Param("day") LocalDate day);
+
+    /**
+     * One-off backfill from {@code user_streaks} history, per course and across courses.
+     * Active days are grouped into runs (gaps-and-islands: date minus row number is constant
+     * within a run); existing state rows are left alone.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "WITH active AS ( " +
+           "    SELECT user_id, course_id, streak_date FROM user_streaks WHERE is_active_day " +
+           "    UNION ALL " +
+           "    SELECT DISTINCT user_id, 0, streak_date FROM user_streaks WHERE is_active_day " +
+           "), runs AS ( " +
+           "    SELECT user_id, course_id, COUNT(*) AS len, MAX(streak_date) AS last_day FROM ( " +
+           "        SELECT user_id, course_id, streak_date, " +
+           "               streak_date - CAST(ROW_NUMBER() OVER (PARTITION BY user_id, course_id " +
+           "                                                     ORDER BY streak_date) AS integer) AS grp " +
+           "        FROM active) days " +
+           "    GROUP BY user_id, course_id, grp " +
+           ") " +
+           "INSERT INTO user_streak_state (user_id, course_id, current_streak, longest_streak, " +
+           "last_active_date, updated_at) " +
+           "SELECT user_id, course_id, (ARRAY_AGG(len ORDER BY last_day DESC))[1], MAX(len), MAX(last_day), now() " +
+           "FROM runs GROUP BY user_id, course_id " +
+           "ON CONFLICT (user_id, course_id) DO NOTHING",
+           nativeQuery = true)
+    int backfillFromHistory();
+}
@@ -2,6 +2,11 @@ package com.example.cdaxVideo.Repository;
 
 import com.example.cdaxVideo.Entity.UserVideoActivity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -15,5 +20,20 @@ public interface UserVideoActivityRepository extends JpaRepository<UserVideoActi
     Optional<UserVideoActivity> findByEmailAndDate(String email, LocalDate date);
 
     Optional<UserVideoActivity> findByUserIdAndDate(Long userId, LocalDate date);
-}
 
+    /**
+     * Adds {@code videosWatched} to the user's row for {@code date}, creating it if needed.
+     * Returns 0 when the user does not exist.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_video_activity (email, user_id, date, videos_watched) " +
+           "SELECT u.email, u.id, :date, :videosWatched FROM users u WHERE u.id = :userId " +
+           "ON CONFLICT (email, date) DO UPDATE SET " +
+           "videos_watched = user_video_activity.videos_watched + EXCLUDED.videos_watched, " +
+           "user_id = EXCLUDED.user_id",
+           nativeQuery = true)
+    int upsertVideosWatched(@Param("userId") Long userId,
+                            @Param("date") LocalDate date,
+                            @Param("videosWatched") int videosWatched);
+}
@@ -4,10 +4,13 @@ import com.example.cdaxVideo.Entity.UserVideoProgress;
 import com.example.cdaxVideo.Entity.User;
 import com.example.cdaxVideo.Entity.Video;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +19,7 @@ public interface UserVideoProgressRepository extends JpaRepository<UserVideoProg
     // Basic methods (will need @Transactional if accessing relationships)
     Optional<UserVideoProgress> findByUserAndVideo(User user, Video video);
     Optional<UserVideoProgress> findByUserIdAndVideoId(Long userId, Long videoId);
+    List<UserVideoProgress> findByUserIdAndVideoIdIn(Long userId, Collection<Long> videoIds);
     boolean existsByUserIdAndVideoIdAndCompletedTrue(Long userId, Long videoId);
     List<UserVideoProgress> findByUserId(Long userId);
     List<UserVideoProgress> findByUserIdAndCompletedTrue(Long userId);
@@ -81,6 +85,21 @@ public interface UserVideoProgressRepository extends JpaRepository<UserVideoProg
         @Param("endDateTime") LocalDateTime endDateTime
     );
 
+    // Same window across all of the user's courses, with the module for grouping by course
+    @Query("SELECT uvp FROM UserVideoProgress uvp " +
+           "JOIN FETCH uvp.video v " +
+           "JOIN FETCH v.module m " +
+           "WHERE uvp.user.id = :userId " +
+           "AND uvp.lastUpdatedAt >= :startDateTime " +
+           "AND uvp.lastUpdatedAt < :endDateTime " +
+           "AND uvp.watchedSeconds > 0 " +
+           "ORDER BY uvp.lastUpdatedAt DESC")
+    List<UserVideoProgress> findByUserIdAndDateRangeWithVideoAndModule(
+        @Param("userId") Long userId,
+        @Param("startDateTime") LocalDateTime startDateTime,
+        @Param("endDateTime") LocalDateTime endDateTime
+    );
+
     // ✅ 6. Count completed videos (optimized version)
     @Query("SELECT COUNT(uvp) FROM UserVideoProgress uvp " +
            "JOIN uvp.video v " +
@@ -102,4 +121,40 @@ public interface UserVideoProgressRepository extends JpaRepository<UserVideoProg
         @Param("userId") Long userId,
         @Param("limit") int limit
     );
-}
\ No newline at end of file
+
+    // ✅ 8. Progress flags for a whole course in one statement (progress overlay)
+    @Query("SELECT uvp.video.id, uvp.unlocked, uvp.completed FROM UserVideoProgress uvp " +
+           "WHERE uvp.user.id = :userId AND uvp.video.module.course.id = :courseId")
+    List<Object[]> findProgressFlagsByUserIdAndCourseId(@Param("userId") Long userId,
+                                                        @Param("courseId") Long courseId);
+
+    // ✅ 9. Progress flags for a set of videos (module video state rebuild)
+    @Query("SELECT uvp.video.id, uvp.unlocked, uvp.completed FROM UserVideoProgress uvp " +
+           "WHERE uvp.user.id = :userId AND uvp.video.id IN :videoIds")
+    List<Object[]> findProgressFlagsByUserIdAndVideoIdIn(@Param("userId") Long userId,
+                                                         @Param("videoIds") Collection<Long> videoIds);
+
+    /**
+     * Writes one unlock transition in a single statement: {@code completedVideoId} becomes
+     * unlocked and completed, every other id in {@code videoIds} becomes unlocked. Missing
+     * rows are created; an existing unlock time, completion and completion time are never
+     * undone or moved.
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query(value = "INSERT INTO user_video_progress (user_id, video_id, unlocked, completed, watched_seconds, " +
+           "last_position_seconds, forward_jumps_count, manually_completed, unlocked_on, completed_on, " +
+           "last_updated_at) " +
+           "SELECT u.id, v.id, true, v.id = :completedVideoId, 0, 0, 0, false, now(), " +
+           "       CASE WHEN v.id = :completedVideoId THEN now() END, now() " +
+           "FROM users u, videos v WHERE u.id = :userId AND v.id IN (:videoIds) " +
+           "ON CONFLICT (user_id, video_id) DO UPDATE SET " +
+           "unlocked = true, " +
+           "unlocked_on = COALESCE(user_video_progress.unlocked_on, EXCLUDED.unlocked_on), " +
+           "completed = user_video_progress.completed OR EXCLUDED.completed, " +
+           "completed_on = COALESCE(user_video_progress.completed_on, EXCLUDED.completed_on)",
+           nativeQuery = true)
+    int applyUnlockTransition(@Param("userId") Long userId,
+                              @Param("completedVideoId") Long completedVideoId,
+                              @Param("videoIds") Collection<Long> videoIds);
+}
@@ -70,4 +70,8 @@ public interface VideoRepository extends JpaRepository<Video, Long> {
            "FROM Video v WHERE v.id = :videoId AND v.module.id = :moduleId")
     boolean existsByIdAndModuleId(@Param("videoId") Long videoId, 
                                   @Param("moduleId") Long moduleId);
+
+    // ✅ 8. Every video ordered by module and display order (catalog snapshot)
+    @Query("SELECT v FROM Video v ORDER BY v.module.id ASC, v.displayOrder ASC")
+    List<Video> findAllOrderedByModule();
 }
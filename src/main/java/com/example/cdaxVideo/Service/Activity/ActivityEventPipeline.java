@@ -0,0 +1,263 @@
+package com.example.cdaxVideo.Service.Activity;
+
+import com.example.cdaxVideo.Entity.ActivityEventOutbox;
+import com.example.cdaxVideo.Repository.ActivityEventOutboxRepository;
+import com.example.cdaxVideo.Repository.UserVideoActivityRepository;
+import com.example.cdaxVideo.Service.StreakService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies {@link VideoCompletedEvent}s to {@code user_streaks} and {@code user_video_activity}
+ * off the request thread.
+ *
+ * Events are picked up after the publishing transaction commits and put on a bounded queue.
+ * A single worker drains it in batches of up to {@code activity.events.batch-size}, sums the
+ * batch per (user, course, day) and writes each group with one streak upsert and one activity
+ * upsert, so a burst of completions costs one pair of statements per learner-day.
+ *
+ * Increments that cannot be applied in memory go to {@code activity_event_outbox}: when the
+ * queue is full, when a group fails to apply, and whatever is still queued at shutdown. The
+ * outbox is replayed on startup and then every {@code activity.events.replay-interval-ms}.
+ * Only a crash between commit and the next batch loses events, at most one queue's worth.
+ *
+ * With {@code activity.events.async=false} events are applied on the publishing thread right
+ * after commit, which keeps tests deterministic.
+ */
+@Service
+public class ActivityEventPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityEventPipeline.class);
+
+    private final StreakService streakService;
+    private final UserVideoActivityRepository activityRepository;
+    private final ActivityEventOutboxRepository outboxRepository;
+    // After-commit listeners still see the finished transaction, so writes need a new one
+    private final TransactionTemplate newTransaction;
+    private final boolean async;
+    private final int batchSize;
+
+    private final BlockingQueue<DayActivity> queue;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "activity-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running;
+
+    private final Counter publishedCounter;
+    private final Counter appliedCounter;
+    private final Counter spilledCounter;
+    private final Counter replayedCounter;
+    private final Counter failedCounter;
+
+    public ActivityEventPipeline(StreakService streakService,
+                                 UserVideoActivityRepository activityRepository,
+                                 ActivityEventOutboxRepository outboxRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${activity.events.async:true}") boolean async,
+                                 @Value("${activity.events.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${activity.events.batch-size:500}") int batchSize) {
+        this.streakService = streakService;
+        this.activityRepository = activityRepository;
+        this.outboxRepository = outboxRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.async = async;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("activity.events.queue.size", queue, BlockingQueue::size)
+                .description("Activity events waiting to be applied")
+                .register(meterRegistry);
+        Gauge.builder("activity.events.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .description("Free slots before events spill to the outbox")
+                .register(meterRegistry);
+        this.publishedCounter = meterRegistry.counter("activity.events.published");
+        this.appliedCounter = meterRegistry.counter("activity.events.applied");
+        this.spilledCounter = meterRegistry.counter("activity.events.spilled");
+        this.replayedCounter = meterRegistry.counter("activity.events.replayed");
+        this.failedCounter = meterRegistry.counter("activity.events.failed");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (async) {
+            running = true;
+            worker.submit(this::drainLoop);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVideoCompleted(VideoCompletedEvent event) {
+        publishedCounter.increment();
+        DayActivity activity = new DayActivity(event.userId(), event.courseId(), event.date(),
+                Math.max(event.watchedSeconds(), 0), 1);
+        if (!async) {
+            apply(List.of(activity));
+        } else if (!queue.offer(activity)) {
+            logger.warn("⚠️ Activity event queue full, spilling event for user {} to the outbox", event.userId());
+            spill(List.of(activity));
+        }
+    }
+
+    /** Replays spilled increments, each row in its own transaction together with its delete. */
+    @Scheduled(fixedDelayString = "${activity.events.replay-interval-ms:60000}")
+    public void replayOutbox() {
+        List<ActivityEventOutbox> rows = outboxRepository.findAllByOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (rows.isEmpty()) {
+            return;
+        }
+        int replayed = 0;
+        for (ActivityEventOutbox row : rows) {
+            try {
+                Boolean applied = newTransaction.execute(status -> {
+                    if (outboxRepository.claim(row.getId()) == 0) {
+                        return false; // another instance got it
+                    }
+                    write(new DayActivity(row.getUserId(), row.getCourseId(), row.getActivityDate(),
+                            row.getWatchedSeconds(), row.getCompletedVideos()));
+                    return true;
+                });
+                if (Boolean.TRUE.equals(applied)) {
+                    replayed++;
+                }
+            } catch (RuntimeException e) {
+                logger.error("❌ Replaying outbox row {} failed, will retry: {}", row.getId(), e.getMessage());
+                break;
+            }
+        }
+        replayedCounter.increment(replayed);
+        logger.info("♻️ Replayed {} activity outbox rows", replayed);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.shutdown();
+        if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("⚠️ Activity event worker did not stop in time");
+        }
+        List<DayActivity> remaining = new ArrayList<>(queue.size());
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(aggregate(remaining).values());
+            logger.info("💾 Spilled {} queued activity events to the outbox on shutdown", remaining.size());
+        }
+    }
+
+    private void drainLoop() {
+        List<DayActivity> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                DayActivity first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("❌ Activity event batch failed: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<DayActivity> events) {
+        List<DayActivity> failed = new ArrayList<>();
+        int applied = 0;
+        for (DayActivity group : aggregate(events).values()) {
+            try {
+                newTransaction.executeWithoutResult(status -> write(group));
+                // Every event carries one completion, so a group's count is its number of events
+                applied += group.completedVideos();
+            } catch (RuntimeException e) {
+                logger.error("❌ Applying activity for user {} course {} on {} failed: {}",
+                        group.userId(), group.courseId(), group.date(), e.getMessage());
+                failed.add(group);
+            }
+        }
+        appliedCounter.increment(applied);
+        if (!failed.isEmpty()) {
+            failedCounter.increment(failed.size());
+            spill(failed);
+        }
+    }
+
+    private void write(DayActivity group) {
+        int rows = streakService.applyDailyActivity(group.userId(), group.courseId(), group.date(),
+                group.watchedSeconds(), group.completedVideos());
+        if (rows == 0) {
+            logger.warn("⚠️ Dropping activity for missing user {} or course {}", group.userId(), group.courseId());
+            return;
+        }
+        if (group.completedVideos() > 0) {
+            activityRepository.upsertVideosWatched(group.userId(), group.date(), group.completedVideos());
+        }
+    }
+
+    private void spill(Collection<DayActivity> activities) {
+        List<ActivityEventOutbox> rows = new ArrayList<>(activities.size());
+        for (DayActivity a : activities) {
+            rows.add(new ActivityEventOutbox(a.userId(), a.courseId(), a.date(), a.watchedSeconds(), a.completedVideos()));
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> outboxRepository.saveAll(rows));
+            spilledCounter.increment(rows.size());
+        } catch (RuntimeException e) {
+            logger.error("❌ Could not spill {} activity increments to the outbox, they are lost: {}",
+                    rows.size(), e.getMessage(), e);
+        }
+    }
+
+    private static Map<DayKey, DayActivity> aggregate(List<DayActivity> events) {
+        Map<DayKey, DayActivity> groups = new LinkedHashMap<>();
+        for (DayActivity event : events) {
+            groups.merge(new DayKey(event.userId(), event.courseId(), event.date()), event, DayActivity::plus);
+        }
+        return groups;
+    }
+
+    private record DayKey(Long userId, Long courseId, LocalDate date) {
+    }
+
+    /** Watch time and completions to add to one (user, course, day). */
+    private record DayActivity(Long userId, Long courseId, LocalDate date, int watchedSeconds, int completedVideos) {
+
+        DayActivity plus(DayActivity other) {
+            return new DayActivity(userId, courseId, date,
+                    watchedSeconds + other.watchedSeconds, completedVideos + other.completedVideos);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.cdaxVideo.Service.Activity;
+
+import java.time.LocalDate;
+
+/**
+ * Published when a user completes a video; consumed after commit by {@link ActivityEventPipeline}.
+ *
+ * @param watchedSeconds watch time credited to the day's streak
+ * @param date           day the completion counts towards
+ */
+public record VideoCompletedEvent(Long userId, Long courseId, Long videoId, int watchedSeconds, LocalDate date) {
+}
@@ -0,0 +1,259 @@
+package com.example.cdaxVideo.Service;
+
+import com.example.cdaxVideo.Entity.UserActivityCalendar;
+import com.example.cdaxVideo.Repository.UserActivityCalendarRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.*;
+
+/**
+ * Year-long activity bitmaps per (user, course) for heatmaps and active-day counts.
+ *
+ * Every write to a {@code user_streaks} day is copied into {@code user_activity_calendar}
+ * with one upsert (46-byte active bitmap plus one level byte per day). A user's calendars
+ * for a year are loaded with one query and kept in a bounded LRU cache, evicted after the
+ * writing transaction commits. Levels are the buckets {@link #COLOR_CODES} are indexed by.
+ */
+@Service
+public class ActivityCalendarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityCalendarService.class);
+
+    /** Heatmap colour per level: none, &lt;25%, &lt;50%, &lt;75%, &lt;100%, 100%. */
+    public static final List<String> COLOR_CODES = List.of(
+        "#E5E7EB", "#FEF3C7", "#FDE68A", "#FBBF24", "#F59E0B", "#10B981");
+
+    private static final String BACKFILL_INSERT_SQL =
+        "INSERT INTO user_activity_calendar (user_id, course_id, year, active_days, progress_levels, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, now()) ON CONFLICT (user_id, course_id, year) DO NOTHING";
+
+    private static final int BACKFILL_BATCH = 500;
+
+    private final UserActivityCalendarRepository calendarRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<UserYear, YearCalendars> cache;
+
+    public ActivityCalendarService(UserActivityCalendarRepository calendarRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${streak.calendar.cache.max-entries:10000}") int maxEntries) {
+        this.calendarRepository = calendarRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UserYear, YearCalendars> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public static int levelFor(Double percentage) {
+        if (percentage == null || percentage == 0) return 0;
+        if (percentage < 25) return 1;
+        if (percentage < 50) return 2;
+        if (percentage < 75) return 3;
+        if (percentage < 100) return 4;
+        return 5;
+    }
+
+    // ========== WRITES ==========
+
+    /** Copies the (already written) streak row for the day into the calendar. */
+    public void recordDay(Long userId, Long courseId, LocalDate day) {
+        calendarRepository.copyDayFromStreak(userId, courseId, day, day.getYear(), day.getDayOfYear() - 1);
+        evictAfterCommit(new UserYear(userId, day.getYear()));
+    }
+
+    private void evictAfterCommit(UserYear key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.remove(key);
+                }
+            });
+        } else {
+            cache.remove(key);
+        }
+    }
+
+    // ========== READS ==========
+
+    public YearCalendars getYear(Long userId, int year) {
+        UserYear key = new UserYear(userId, year);
+        YearCalendars calendars = cache.get(key);
+        if (calendars != null) {
+            return calendars;
+        }
+        // The load runs under the map's lock, which the after-commit remove also takes, so a
+        // year read before a write commits can never be put back after that write's eviction
+        return cache.computeIfAbsent(key,
+                k -> YearCalendars.of(calendarRepository.findByUserIdAndYear(userId, year)));
+    }
+
+    /** Distinct active days in [startDate, endDate] across all of the user's courses. */
+    public int countActiveDays(Long userId, LocalDate startDate, LocalDate endDate) {
+        int count = 0;
+        for (int year = startDate.getYear(); year <= endDate.getYear(); year++) {
+            BitSet active = getYear(userId, year).combined().active();
+            int from = year == startDate.getYear() ? startDate.getDayOfYear() - 1 : 0;
+            int to = year == endDate.getYear() ? endDate.getDayOfYear() : UserActivityCalendar.DAYS;
+            count += active.get(from, to).cardinality();
+        }
+        return count;
+    }
+
+    /**
+     * Compact heatmap for one year: the active-day bitmap and the per-day levels as
+     * base64, plus the colour for each level. A null course combines all courses.
+     */
+    public Map<String, Object> getHeatmap(Long userId, Long courseId, int year) {
+        YearCalendars calendars = getYear(userId, year);
+        Calendar calendar = courseId != null ? calendars.course(courseId) : calendars.combined();
+
+        Map<String, Object> heatmap = new LinkedHashMap<>();
+        heatmap.put("userId", userId);
+        heatmap.put("courseId", courseId);
+        heatmap.put("year", year);
+        heatmap.put("daysInYear", Year.of(year).length());
+        heatmap.put("activeDays", calendar.active().cardinality());
+        heatmap.put("activeBitmap", Base64.getEncoder().encodeToString(calendar.bitmapBytes()));
+        heatmap.put("progressLevels", Base64.getEncoder().encodeToString(calendar.levels()));
+        heatmap.put("colorCodes", COLOR_CODES);
+        return heatmap;
+    }
+
+    // ========== BACKFILL ==========
+
+    // Existing streak history is copied into calendars once, on the first start
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (calendarRepository.count() > 0) {
+            return;
+        }
+        // PgJDBC only uses a cursor (and honours the fetch size) inside a transaction;
+        // in autocommit mode it would load all of user_streaks at once
+        int written = transactionTemplate.execute(status -> backfill());
+        logger.info("🗓️ Activity calendars backfilled from streak history: {} rows", written);
+    }
+
+    private int backfill() {
+        List<Object[]> batch = new ArrayList<>(BACKFILL_BATCH);
+        int[] written = {0};
+        Object[][] open = {null}; // {userId, courseId, year, bitmap, levels} of the row being filled
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                "SELECT user_id, course_id, streak_date, is_active_day, progress_percentage " +
+                "FROM user_streaks ORDER BY user_id, course_id, streak_date");
+            ps.setFetchSize(BACKFILL_BATCH);
+            return ps;
+        }, rs -> {
+            long userId = rs.getLong(1);
+            long courseId = rs.getLong(2);
+            LocalDate day = rs.getDate(3).toLocalDate();
+            double percentage = rs.getDouble(5);
+            Double progress = rs.wasNull() ? null : percentage;
+
+            Object[] row = open[0];
+            if (row == null || (long) row[0] != userId || (long) row[1] != courseId || (int) row[2] != day.getYear()) {
+                if (row != null) {
+                    batch.add(row);
+                    if (batch.size() >= BACKFILL_BATCH) {
+                        written[0] += insertBackfill(batch);
+                    }
+                }
+                row = new Object[] { userId, courseId, day.getYear(),
+                    new byte[UserActivityCalendar.BITMAP_BYTES], new byte[UserActivityCalendar.DAYS] };
+                open[0] = row;
+            }
+            int index = day.getDayOfYear() - 1;
+            if (rs.getBoolean(4)) {
+                ((byte[]) row[3])[index >> 3] |= (byte) (1 << (index & 7));
+            }
+            ((byte[]) row[4])[index] = (byte) levelFor(progress);
+        });
+        if (open[0] != null) {
+            batch.add(open[0]);
+        }
+        written[0] += insertBackfill(batch);
+        return written[0];
+    }
+
+    private int insertBackfill(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(BACKFILL_INSERT_SQL, batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    // ========== VALUES ==========
+
+    private record UserYear(Long userId, int year) {
+    }
+
+    /** One year of activity: active-day bits and a level (0-5) per day, indexed by dayOfYear - 1. */
+    public record Calendar(BitSet active, byte[] levels) {
+
+        static Calendar empty() {
+            return new Calendar(new BitSet(UserActivityCalendar.DAYS), new byte[UserActivityCalendar.DAYS]);
+        }
+
+        byte[] bitmapBytes() {
+            return Arrays.copyOf(active.toByteArray(), UserActivityCalendar.BITMAP_BYTES);
+        }
+    }
+
+    /** A user's calendars for one year, per course and combined (bits OR-ed, highest level per day). */
+    public static final class YearCalendars {
+        private final Map<Long, Calendar> byCourse;
+        private final Calendar combined;
+
+        private YearCalendars(Map<Long, Calendar> byCourse, Calendar combined) {
+            this.byCourse = byCourse;
+            this.combined = combined;
+        }
+
+        static YearCalendars of(List<UserActivityCalendar> rows) {
+            Map<Long, Calendar> byCourse = new HashMap<>();
+            BitSet active = new BitSet(UserActivityCalendar.DAYS);
+            byte[] levels = new byte[UserActivityCalendar.DAYS];
+            for (UserActivityCalendar row : rows) {
+                Calendar calendar = new Calendar(BitSet.valueOf(row.getActiveDays()),
+                    Arrays.copyOf(row.getProgressLevels(), UserActivityCalendar.DAYS));
+                byCourse.put(row.getCourseId(), calendar);
+                active.or(calendar.active());
+                for (int i = 0; i < levels.length; i++) {
+                    levels[i] = (byte) Math.max(levels[i], calendar.levels()[i]);
+                }
+            }
+            return new YearCalendars(byCourse, new Calendar(active, levels));
+        }
+
+        public Calendar course(Long courseId) {
+            return byCourse.getOrDefault(courseId, Calendar.empty());
+        }
+
+        public Calendar combined() {
+            return combined;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.cdaxVideo.Service.Catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Autocomplete over course titles and tags, rebuilt from the catalog snapshot on change.
+ *
+ * Titles and tags each live in a prefix trie whose nodes carry the ten heaviest
+ * suggestions below them, so a prefix lookup is a walk of the prefix length. Tags also
+ * have a bigram/trigram side index for infix matches. Weight is {@code 1 + enrolledStudents}
+ * summed over the courses using a title or tag.
+ */
+@Service
+public class AutocompleteIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteIndex.class);
+
+    static final int TOP_K = 10;
+
+    private final CatalogSnapshot catalogSnapshot;
+    private volatile Structure current;
+
+    public AutocompleteIndex(CatalogSnapshot catalogSnapshot) {
+        this.catalogSnapshot = catalogSnapshot;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        current = Structure.build(catalogSnapshot.getCourseViews());
+        logger.info("🔤 Autocomplete rebuilt for catalog v{}", event.version());
+    }
+
+    /** Heaviest course titles starting with the (lowercased) prefix. */
+    public List<String> titlesStartingWith(String prefix, int limit) {
+        return take(structure().titles.lookup(prefix), limit);
+    }
+
+    /** Heaviest tags containing the (lowercased) fragment anywhere. */
+    public List<String> tagsContaining(String fragment, int limit) {
+        Structure structure = structure();
+        List<Suggestion> prefixHits = structure.tags.lookup(fragment);
+        if (prefixHits.size() >= limit) {
+            return take(prefixHits, limit);
+        }
+        return take(structure.tagsContaining(fragment), limit);
+    }
+
+    private Structure structure() {
+        Structure structure = current;
+        if (structure == null) {
+            structure = Structure.build(catalogSnapshot.getCourseViews());
+            current = structure;
+        }
+        return structure;
+    }
+
+    private static List<String> take(List<Suggestion> suggestions, int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, suggestions.size()));
+        for (int i = 0; i < suggestions.size() && result.size() < limit; i++) {
+            result.add(suggestions.get(i).text());
+        }
+        return result;
+    }
+
+    // ========== IMMUTABLE STRUCTURE ==========
+
+    record Suggestion(String text, long weight) {
+        static final Comparator<Suggestion> BEST_FIRST = Comparator
+                .comparingLong(Suggestion::weight).reversed()
+                .thenComparing(Suggestion::text);
+    }
+
+    private static final class Structure {
+        final Trie titles;
+        final Trie tags;
+        final Suggestion[] tagList;
+        final String[] tagLower;
+        final Map<String, int[]> tagGrams;
+
+        private Structure(Trie titles, Trie tags, Suggestion[] tagList, String[] tagLower,
+                          Map<String, int[]> tagGrams) {
+            this.titles = titles;
+            this.tags = tags;
+            this.tagList = tagList;
+            this.tagLower = tagLower;
+            this.tagGrams = tagGrams;
+        }
+
+        static Structure build(List<CatalogSnapshot.CourseView> courses) {
+            Map<String, Suggestion> titleTerms = new LinkedHashMap<>();
+            Map<String, Suggestion> tagTerms = new LinkedHashMap<>();
+            for (CatalogSnapshot.CourseView course : courses) {
+                long weight = 1L + (course.enrolledStudents() != null ? Math.max(0, course.enrolledStudents()) : 0);
+                if (course.title() != null) {
+                    accumulate(titleTerms, course.title(), weight);
+                }
+                for (String tag : course.tags()) {
+                    accumulate(tagTerms, tag, weight);
+                }
+            }
+
+            Trie titles = Trie.build(titleTerms);
+            Trie tags = Trie.build(tagTerms);
+
+            Suggestion[] tagList = tagTerms.values().toArray(new Suggestion[0]);
+            Arrays.sort(tagList, Suggestion.BEST_FIRST);
+            String[] tagLower = new String[tagList.length];
+            for (int i = 0; i < tagList.length; i++) {
+                tagLower[i] = tagList[i].text().toLowerCase();
+            }
+            return new Structure(titles, tags, tagList, tagLower, NGrams.postings(tagLower, 2, 3));
+        }
+
+        private static void accumulate(Map<String, Suggestion> terms, String text, long weight) {
+            terms.merge(text.toLowerCase(), new Suggestion(text, weight),
+                    (a, b) -> new Suggestion(a.text(), a.weight() + b.weight()));
+        }
+
+        // Tag ids are positions in the weight-sorted tag list, so posting order is rank order
+        List<Suggestion> tagsContaining(String fragment) {
+            if (fragment.length() < 2) {
+                return List.of();
+            }
+            int[] candidates = NGrams.candidates(tagGrams, fragment, fragment.length() == 2 ? 2 : 3);
+
+            List<Suggestion> result = new ArrayList<>();
+            for (int id : candidates) {
+                if (tagLower[id].contains(fragment)) {
+                    result.add(tagList[id]);
+                }
+            }
+            return result;
+        }
+    }
+
+    /** Character trie with sorted child arrays; every node keeps its top suggestions. */
+    private static final class Trie {
+        private static final char[] NO_LABELS = new char[0];
+        private static final Trie[] NO_CHILDREN = new Trie[0];
+
+        private char[] labels = NO_LABELS;
+        private Trie[] children = NO_CHILDREN;
+        private Suggestion terminal;
+        private List<Suggestion> top = List.of();
+
+        static Trie build(Map<String, Suggestion> terms) {
+            Trie root = new Trie();
+            terms.forEach((key, suggestion) -> {
+                Trie node = root;
+                for (int i = 0; i < key.length(); i++) {
+                    node = node.getOrAdd(key.charAt(i));
+                }
+                node.terminal = suggestion;
+            });
+            root.collectTop();
+            return root;
+        }
+
+        List<Suggestion> lookup(String prefix) {
+            Trie node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                int idx = Arrays.binarySearch(node.labels, prefix.charAt(i));
+                node = idx >= 0 ? node.children[idx] : null;
+            }
+            return node == null ? List.of() : node.top;
+        }
+
+        private Trie getOrAdd(char c) {
+            int idx = Arrays.binarySearch(labels, c);
+            if (idx >= 0) return children[idx];
+            int insertAt = -idx - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Trie[] newChildren = new Trie[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = c;
+            newChildren[insertAt] = new Trie();
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+
+        private void collectTop() {
+            List<Suggestion> candidates = new ArrayList<>();
+            if (terminal != null) candidates.add(terminal);
+            for (Trie child : children) {
+                child.collectTop();
+                candidates.addAll(child.top);
+            }
+            candidates.sort(Suggestion.BEST_FIRST);
+            top = List.copyOf(candidates.subList(0, Math.min(TOP_K, candidates.size())));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.cdaxVideo.Service.Catalog;
+
+/**
+ * Published after a new catalog snapshot is swapped in.
+ *
+ * @param version         version of the snapshot that is now current
+ * @param changedCourseId course touched by the write, or null after a full rebuild
+ */
+public record CatalogChangedEvent(long version, Long changedCourseId) {
+
+    public boolean isFullRebuild() {
+        return changedCourseId == null;
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.cdaxVideo.Service.Catalog;
+
+import com.example.cdaxVideo.Entity.Assessment;
+import com.example.cdaxVideo.Entity.Course;
+import com.example.cdaxVideo.Entity.Module;
+import com.example.cdaxVideo.Entity.Video;
+import com.example.cdaxVideo.Repository.AssessmentRepository;
+import com.example.cdaxVideo.Repository.CourseRepository;
+import com.example.cdaxVideo.Repository.VideoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Immutable in-memory copy of the course catalog (Course → Module → Video → Assessment).
+ *
+ * The whole graph is rebuilt after every catalog write and published through one volatile
+ * reference, so readers never lock and never hit the database. Readers get fresh detached
+ * {@link Course} copies and may set transient flags on them freely.
+ */
+@Service
+public class CatalogSnapshot implements InfoContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    private final CourseRepository courseRepository;
+    private final VideoRepository videoRepository;
+    private final AssessmentRepository assessmentRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Object rebuildLock = new Object();
+    private volatile Graph current = Graph.EMPTY;
+
+    public CatalogSnapshot(CourseRepository courseRepository,
+                           VideoRepository videoRepository,
+                           AssessmentRepository assessmentRepository,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher) {
+        this.courseRepository = courseRepository;
+        this.videoRepository = videoRepository;
+        this.assessmentRepository = assessmentRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild(null);
+    }
+
+    // ========== READS ==========
+
+    /** All courses ordered by id, as fresh detached copies with modules and videos. */
+    public List<Course> getCourses() {
+        List<CourseView> views = graph().courses;
+        List<Course> courses = new ArrayList<>(views.size());
+        for (CourseView view : views) {
+            courses.add(view.toCourse());
+        }
+        return courses;
+    }
+
+    public Optional<Course> findCourse(Long courseId) {
+        return findCourseView(courseId).map(CourseView::toCourse);
+    }
+
+    public List<CourseView> getCourseViews() {
+        return graph().courses;
+    }
+
+    public Optional<CourseView> findCourseView(Long courseId) {
+        return Optional.ofNullable(graph().coursesById.get(courseId));
+    }
+
+    public Optional<ModuleView> findModule(Long moduleId) {
+        return Optional.ofNullable(graph().modulesById.get(moduleId));
+    }
+
+    public Optional<VideoView> findVideo(Long videoId) {
+        return Optional.ofNullable(graph().videosById.get(videoId));
+    }
+
+    public Optional<AssessmentView> findAssessment(Long assessmentId) {
+        return Optional.ofNullable(graph().assessmentsById.get(assessmentId));
+    }
+
+    public long getVersion() {
+        return graph().version;
+    }
+
+    public Instant getBuiltAt() {
+        return graph().builtAt;
+    }
+
+    // First read before ApplicationReadyEvent builds the snapshot itself
+    private Graph graph() {
+        Graph graph = current;
+        if (graph.version == 0) {
+            synchronized (rebuildLock) {
+                if (current.version == 0) {
+                    rebuild(null);
+                }
+            }
+            graph = current;
+        }
+        return graph;
+    }
+
+    // ========== REBUILD ==========
+
+    /**
+     * Rebuild after a write to one course (or its modules, videos, assessments). Inside a
+     * transaction the rebuild waits for the commit so it sees the new rows.
+     */
+    public void requestRebuild(Long changedCourseId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuild(changedCourseId);
+                }
+            });
+        } else {
+            rebuild(changedCourseId);
+        }
+    }
+
+    /**
+     * Swap in a freshly loaded graph and publish a {@link CatalogChangedEvent}. Listeners run
+     * under the rebuild lock, so they see versions strictly in order.
+     */
+    public void rebuild(Long changedCourseId) {
+        synchronized (rebuildLock) {
+            long started = System.currentTimeMillis();
+            Graph graph = readOnlyTx.execute(status -> loadGraph(current.version + 1));
+            current = graph;
+            logger.info("📚 Catalog snapshot v{} built: {} courses in {} ms",
+                    graph.version, graph.courses.size(), System.currentTimeMillis() - started);
+            eventPublisher.publishEvent(new CatalogChangedEvent(graph.version, changedCourseId));
+        }
+    }
+
+    // Courses + modules, tags (subselect), videos and assessments: four statements in total
+    private Graph loadGraph(long version) {
+        List<Course> courses = courseRepository.findAllWithModules();
+
+        Map<Long, List<VideoView>> videosByModule = new HashMap<>();
+        Map<Long, VideoView> videosById = new HashMap<>();
+        for (Video v : videoRepository.findAllOrderedByModule()) {
+            VideoView view = VideoView.of(v);
+            videosByModule.computeIfAbsent(view.moduleId(), k -> new ArrayList<>()).add(view);
+            videosById.put(view.id(), view);
+        }
+
+        Map<Long, List<AssessmentView>> assessmentsByModule = new HashMap<>();
+        Map<Long, AssessmentView> assessmentsById = new HashMap<>();
+        for (Assessment a : assessmentRepository.findAll()) {
+            if (a.getModule() == null) continue;
+            AssessmentView view = new AssessmentView(a.getId(), a.getModule().getId(), a.getTitle(),
+                    a.getTotalMarks(), a.getTotalQuestions());
+            assessmentsByModule.computeIfAbsent(view.moduleId(), k -> new ArrayList<>()).add(view);
+            assessmentsById.put(view.id(), view);
+        }
+
+        List<CourseView> views = new ArrayList<>(courses.size());
+        for (Course c : courses) {
+            List<ModuleView> modules = new ArrayList<>(c.getModules().size());
+            for (Module m : c.getModules()) {
+                modules.add(new ModuleView(m.getId(), c.getId(), m.getTitle(), m.getDurationSec(),
+                        List.copyOf(videosByModule.getOrDefault(m.getId(), List.of())),
+                        List.copyOf(assessmentsByModule.getOrDefault(m.getId(), List.of()))));
+            }
+            views.add(CourseView.of(c, modules));
+        }
+        views.sort(Comparator.comparing(CourseView::id));
+
+        Map<Long, CourseView> coursesById = new HashMap<>();
+        Map<Long, ModuleView> modulesById = new HashMap<>();
+        for (CourseView view : views) {
+            coursesById.put(view.id(), view);
+            for (ModuleView module : view.modules()) {
+                modulesById.put(module.id(), module);
+            }
+        }
+        return new Graph(version, Instant.now(), List.copyOf(views), Map.copyOf(coursesById),
+                Map.copyOf(modulesById), Map.copyOf(videosById), Map.copyOf(assessmentsById));
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        Graph graph = current;
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("version", graph.version);
+        details.put("builtAt", graph.builtAt.toString());
+        details.put("courses", graph.courses.size());
+        builder.withDetail("catalogSnapshot", details);
+    }
+
+    // ========== IMMUTABLE GRAPH ==========
+
+    private static final class Graph {
+        static final Graph EMPTY = new Graph(0, Instant.EPOCH, List.of(), Map.of(), Map.of(), Map.of(), Map.of());
+
+        final long version;
+        final Instant builtAt;
+        final List<CourseView> courses;
+        final Map<Long, CourseView> coursesById;
+        final Map<Long, ModuleView> modulesById;
+        final Map<Long, VideoView> videosById;
+        final Map<Long, AssessmentView> assessmentsById;
+
+        Graph(long version, Instant builtAt, List<CourseView> courses, Map<Long, CourseView> coursesById,
+              Map<Long, ModuleView> modulesById, Map<Long, VideoView> videosById,
+              Map<Long, AssessmentView> assessmentsById) {
+            this.version = version;
+            this.builtAt = builtAt;
+            this.courses = courses;
+            this.coursesById = coursesById;
+            this.modulesById = modulesById;
+            this.videosById = videosById;
+            this.assessmentsById = assessmentsById;
+        }
+    }
+
+    public record CourseView(Long id, String title, String description, String thumbnailUrl,
+                             String shortDescription, String instructor, String instructorId,
+                             String bannerImage, Double price, Double discountPrice, Double rating,
+                             Integer totalRatings, Integer enrolledStudents, Integer totalDuration,
+                             String level, String category, String subCategory, List<String> tags,
+                             Boolean isPublished, Boolean isFeatured, Boolean isPopular,
+                             LocalDateTime createdAt, LocalDateTime updatedAt, LocalDateTime publishedAt,
+                             Double requiresMinimumGrade, List<ModuleView> modules) {
+
+        static CourseView of(Course c, List<ModuleView> modules) {
+            List<String> tags = c.getTags() == null ? List.of()
+                    : c.getTags().stream().filter(Objects::nonNull).toList();
+            return new CourseView(c.getId(), c.getTitle(), c.getDescription(), c.getThumbnailUrl(),
+                    c.getShortDescription(), c.getInstructor(), c.getInstructorId(), c.getBannerImage(),
+                    c.getPrice(), c.getDiscountPrice(), c.getRating(), c.getTotalRatings(),
+                    c.getEnrolledStudents(), c.getTotalDuration(), c.getLevel(), c.getCategory(),
+                    c.getSubCategory(), tags, c.getIsPublished(), c.getIsFeatured(), c.getIsPopular(),
+                    c.getCreatedAt(), c.getUpdatedAt(), c.getPublishedAt(), c.getRequiresMinimumGrade(),
+                    List.copyOf(modules));
+        }
+
+        /** Fresh detached entity copy, including modules and videos. */
+        public Course toCourse() {
+            Course c = new Course();
+            c.setId(id);
+            c.setTitle(title);
+            c.setDescription(description);
+            c.setThumbnailUrl(thumbnailUrl);
+            c.setShortDescription(shortDescription);
+            c.setInstructor(instructor);
+            c.setInstructorId(instructorId);
+            c.setBannerImage(bannerImage);
+            c.setPrice(price);
+            c.setDiscountPrice(discountPrice);
+            c.setRating(rating);
+            c.setTotalRatings(totalRatings);
+            c.setEnrolledStudents(enrolledStudents);
+            c.setTotalDuration(totalDuration);
+            c.setLevel(level);
+            c.setCategory(category);
+            c.setSubCategory(subCategory);
+            c.setTags(new ArrayList<>(tags));
+            c.setIsPublished(isPublished);
+            c.setIsFeatured(isFeatured);
+            c.setIsPopular(isPopular);
+            c.setCreatedAt(createdAt);
+            c.setUpdatedAt(updatedAt);
+            c.setPublishedAt(publishedAt);
+            c.setRequiresMinimumGrade(requiresMinimumGrade);
+
+            List<Module> moduleCopies = new ArrayList<>(modules.size());
+            for (ModuleView m : modules) {
+                moduleCopies.add(m.toModule(c));
+            }
+            c.setModules(moduleCopies);
+            c.calculateDerivedFields();
+            return c;
+        }
+    }
+
+    public record ModuleView(Long id, Long courseId, String title, int durationSec,
+                             List<VideoView> videos, List<AssessmentView> assessments) {
+
+        Module toModule(Course course) {
+            Module m = new Module(title, durationSec);
+            m.setId(id);
+            m.setCourse(course);
+            List<Video> videoCopies = m.getVideos();
+            for (VideoView v : videos) {
+                Video video = v.toVideo();
+                video.setModule(m);
+                videoCopies.add(video);
+            }
+            return m;
+        }
+    }
+
+    public record VideoView(Long id, Long moduleId, String title, String videoUrl, String youtubeId,
+                            Integer duration, Integer displayOrder, Boolean isPreview,
+                            LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+        static VideoView of(Video v) {
+            return new VideoView(v.getId(), v.getModule().getId(), v.getTitle(), v.getVideoUrl(),
+                    v.getYoutubeId(), v.getDuration(), v.getDisplayOrder(), v.getIsPreview(),
+                    v.getCreatedAt(), v.getUpdatedAt());
+        }
+
+        Video toVideo() {
+            Video v = new Video();
+            v.setId(id);
+            v.setTitle(title);
+            v.setVideoUrl(videoUrl);
+            v.setYoutubeId(youtubeId);
+            v.setDuration(duration);
+            v.setDisplayOrder(displayOrder);
+            v.setIsPreview(isPreview);
+            v.setCreatedAt(createdAt);
+            v.setUpdatedAt(updatedAt);
+            return v;
+        }
+    }
+
+    public record AssessmentView(Long id, Long moduleId, String title, int totalMarks, int totalQuestions) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.cdaxVideo.Service.Catalog;
+
+import com.example.cdaxVideo.Repository.ModuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Per-course denominators: total video seconds, video count, module count and the same
+ * totals per module.
+ *
+ * Loaded with one GROUP BY over modules and videos on the first full catalog rebuild; a
+ * write to one course (saving a module or video) re-runs the query for that course only
+ * and swaps its entry into a copy of the map. Readers never touch the database.
+ */
+@Service
+public class CourseAggregates {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseAggregates.class);
+
+    private final ModuleRepository moduleRepository;
+    private final Object loadLock = new Object();
+    private volatile Map<Long, CourseTotals> current;
+
+    public CourseAggregates(ModuleRepository moduleRepository) {
+        this.moduleRepository = moduleRepository;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        synchronized (loadLock) {
+            if (event.isFullRebuild() || current == null) {
+                current = group(moduleRepository.findVideoTotalsPerModule());
+                logger.info("🧮 Course aggregates loaded for catalog v{}: {} courses", event.version(), current.size());
+            } else {
+                Long courseId = event.changedCourseId();
+                Map<Long, CourseTotals> next = new HashMap<>(current);
+                CourseTotals totals = group(moduleRepository.findVideoTotalsPerModuleByCourseId(courseId)).get(courseId);
+                next.put(courseId, totals != null ? totals : CourseTotals.empty(courseId));
+                current = Collections.unmodifiableMap(next);
+            }
+        }
+    }
+
+    /** Totals for the course; all zero for a course without modules or an unknown id. */
+    public CourseTotals get(Long courseId) {
+        CourseTotals totals = aggregates().get(courseId);
+        return totals != null ? totals : CourseTotals.empty(courseId);
+    }
+
+    // First read before the initial catalog event loads everything itself
+    private Map<Long, CourseTotals> aggregates() {
+        Map<Long, CourseTotals> map = current;
+        if (map == null) {
+            synchronized (loadLock) {
+                if (current == null) {
+                    current = group(moduleRepository.findVideoTotalsPerModule());
+                }
+                map = current;
+            }
+        }
+        return map;
+    }
+
+    // Rows are {courseId, moduleId, videoCount, totalSeconds}, ordered by course and module
+    private static Map<Long, CourseTotals> group(List<Object[]> rows) {
+        Map<Long, Map<Long, ModuleTotals>> modulesByCourse = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Long courseId = (Long) row[0];
+            Long moduleId = (Long) row[1];
+            int videoCount = ((Number) row[2]).intValue();
+            long totalSeconds = ((Number) row[3]).longValue();
+            modulesByCourse.computeIfAbsent(courseId, id -> new LinkedHashMap<>())
+                    .put(moduleId, new ModuleTotals(moduleId, totalSeconds, videoCount));
+        }
+
+        Map<Long, CourseTotals> courses = new HashMap<>(modulesByCourse.size() * 2);
+        for (Map.Entry<Long, Map<Long, ModuleTotals>> entry : modulesByCourse.entrySet()) {
+            long totalSeconds = 0;
+            int videoCount = 0;
+            for (ModuleTotals module : entry.getValue().values()) {
+                totalSeconds += module.totalSeconds();
+                videoCount += module.videoCount();
+            }
+            courses.put(entry.getKey(), new CourseTotals(entry.getKey(), totalSeconds, videoCount,
+                    entry.getValue().size(), Collections.unmodifiableMap(entry.getValue())));
+        }
+        return Collections.unmodifiableMap(courses);
+    }
+
+    public record ModuleTotals(Long moduleId, long totalSeconds, int videoCount) {
+    }
+
+    public record CourseTotals(Long courseId, long totalSeconds, int videoCount, int moduleCount,
+                               Map<Long, ModuleTotals> modules) {
+
+        static CourseTotals empty(Long courseId) {
+            return new CourseTotals(courseId, 0, 0, 0, Map.of());
+        }
+
+        /** Totals for one module of this course, zero if it has no videos or is not part of it. */
+        public ModuleTotals module(Long moduleId) {
+            ModuleTotals totals = modules.get(moduleId);
+            return totals != null ? totals : new ModuleTotals(moduleId, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.cdaxVideo.Service.Catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Faceted filtering over the catalog snapshot.
+ *
+ * Category and level are bitmaps over course ordinals (case-insensitive values); price and
+ * rating are columns sorted by value, so a range filter is two binary searches. A query is
+ * a handful of {@link BitSet} intersections, and facet counts come from the same bitmaps:
+ * each facet is counted with every filter applied except its own, which is what filter
+ * chips need.
+ */
+@Service
+public class CourseFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseFacetIndex.class);
+
+    private final CatalogSnapshot catalogSnapshot;
+    private volatile Columns current;
+
+    public CourseFacetIndex(CatalogSnapshot catalogSnapshot) {
+        this.catalogSnapshot = catalogSnapshot;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        current = Columns.build(catalogSnapshot.getCourseViews());
+        logger.info("🧮 Facet index rebuilt for catalog v{}", event.version());
+    }
+
+    /**
+     * Apply the filters to {@code candidateIds} (null means the whole catalog). Matching ids
+     * keep the candidate order, or id order when there are no candidates.
+     */
+    public FacetResult filter(List<Long> candidateIds, String category, Double minPrice, Double maxPrice,
+                              Double minRating, String level) {
+        Columns columns = columns();
+
+        BitSet base;
+        if (candidateIds == null) {
+            base = new BitSet(columns.courseIds.length);
+            base.set(0, columns.courseIds.length);
+        } else {
+            base = new BitSet(columns.courseIds.length);
+            for (Long id : candidateIds) {
+                Integer ordinal = columns.ordinals.get(id);
+                if (ordinal != null) base.set(ordinal);
+            }
+        }
+
+        if (minPrice != null || maxPrice != null) {
+            base.and(columns.price.range(minPrice, maxPrice));
+        }
+        if (minRating != null) {
+            base.and(columns.rating.range(minRating, null));
+        }
+
+        BitSet categoryBits = hasText(category) ? columns.categories.bits(category) : null;
+        BitSet levelBits = hasText(level) ? columns.levels.bits(level) : null;
+
+        BitSet withoutCategory = and(base, levelBits);
+        BitSet withoutLevel = and(base, categoryBits);
+        BitSet matched = and(withoutCategory, categoryBits);
+
+        List<Long> courseIds = new ArrayList<>(matched.cardinality());
+        if (candidateIds == null) {
+            for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+                courseIds.add(columns.courseIds[i]);
+            }
+        } else {
+            for (Long id : candidateIds) {
+                Integer ordinal = columns.ordinals.get(id);
+                if (ordinal != null && matched.get(ordinal)) courseIds.add(id);
+            }
+        }
+
+        return new FacetResult(courseIds,
+                columns.categories.counts(withoutCategory),
+                columns.levels.counts(withoutLevel));
+    }
+
+    private Columns columns() {
+        Columns columns = current;
+        if (columns == null) {
+            columns = Columns.build(catalogSnapshot.getCourseViews());
+            current = columns;
+        }
+        return columns;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private static BitSet and(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        if (b != null) result.and(b);
+        return result;
+    }
+
+    /** Matching course ids plus per-value counts for the category and level facets. */
+    public record FacetResult(List<Long> courseIds,
+                              Map<String, Integer> categoryCounts,
+                              Map<String, Integer> levelCounts) {
+    }
+
+    // ========== IMMUTABLE COLUMNS ==========
+
+    private static final class Columns {
+        final long[] courseIds;
+        final Map<Long, Integer> ordinals;
+        final Facet categories;
+        final Facet levels;
+        final RangeColumn price;
+        final RangeColumn rating;
+
+        private Columns(long[] courseIds, Map<Long, Integer> ordinals, Facet categories, Facet levels,
+                        RangeColumn price, RangeColumn rating) {
+            this.courseIds = courseIds;
+            this.ordinals = ordinals;
+            this.categories = categories;
+            this.levels = levels;
+            this.price = price;
+            this.rating = rating;
+        }
+
+        static Columns build(List<CatalogSnapshot.CourseView> courses) {
+            int n = courses.size();
+            long[] courseIds = new long[n];
+            Map<Long, Integer> ordinals = new HashMap<>(n * 2);
+            Facet.Builder categories = new Facet.Builder();
+            Facet.Builder levels = new Facet.Builder();
+            Double[] prices = new Double[n];
+            Double[] ratings = new Double[n];
+
+            for (int i = 0; i < n; i++) {
+                CatalogSnapshot.CourseView course = courses.get(i);
+                courseIds[i] = course.id();
+                ordinals.put(course.id(), i);
+                categories.add(course.category(), i);
+                levels.add(course.level(), i);
+                prices[i] = course.price();
+                ratings[i] = course.rating();
+            }
+            return new Columns(courseIds, ordinals, categories.build(), levels.build(),
+                    RangeColumn.of(prices), RangeColumn.of(ratings));
+        }
+    }
+
+    /** One bitmap per distinct (case-insensitive) value. */
+    private static final class Facet {
+        final Map<String, BitSet> bitsByKey;
+        final Map<String, String> labels;
+
+        private Facet(Map<String, BitSet> bitsByKey, Map<String, String> labels) {
+            this.bitsByKey = bitsByKey;
+            this.labels = labels;
+        }
+
+        BitSet bits(String value) {
+            BitSet bits = bitsByKey.get(value.toLowerCase());
+            return bits != null ? bits : new BitSet();
+        }
+
+        // Highest count first; values with no match in the current selection are left out
+        Map<String, Integer> counts(BitSet selection) {
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+            bitsByKey.forEach((key, bits) -> {
+                BitSet hit = (BitSet) bits.clone();
+                hit.and(selection);
+                int count = hit.cardinality();
+                if (count > 0) entries.add(Map.entry(labels.get(key), count));
+            });
+            entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> entry : entries) {
+                counts.put(entry.getKey(), entry.getValue());
+            }
+            return counts;
+        }
+
+        static final class Builder {
+            private final Map<String, BitSet> bitsByKey = new HashMap<>();
+            private final Map<String, String> labels = new HashMap<>();
+
+            void add(String value, int ordinal) {
+                if (value == null || value.isEmpty()) return;
+                String key = value.toLowerCase();
+                bitsByKey.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+                labels.putIfAbsent(key, value);
+            }
+
+            Facet build() {
+                return new Facet(Map.copyOf(bitsByKey), Map.copyOf(labels));
+            }
+        }
+    }
+
+    /** Non-null values sorted ascending with the ordinal of the course each came from. */
+    private static final class RangeColumn {
+        final double[] values;
+        final int[] ordinals;
+
+        private RangeColumn(double[] values, int[] ordinals) {
+            this.values = values;
+            this.ordinals = ordinals;
+        }
+
+        static RangeColumn of(Double[] column) {
+            Integer[] order = new Integer[column.length];
+            int count = 0;
+            for (int i = 0; i < column.length; i++) {
+                if (column[i] != null) order[count++] = i;
+            }
+            Integer[] present = Arrays.copyOf(order, count);
+            Arrays.sort(present, Comparator.comparingDouble(i -> column[i]));
+
+            double[] values = new double[count];
+            int[] ordinals = new int[count];
+            for (int i = 0; i < count; i++) {
+                ordinals[i] = present[i];
+                values[i] = column[present[i]];
+            }
+            return new RangeColumn(values, ordinals);
+        }
+
+        /** Ordinals with min <= value <= max; a null bound is open. */
+        BitSet range(Double min, Double max) {
+            int from = min == null ? 0 : firstIndexAtLeast(min);
+            int to = max == null ? values.length : firstIndexAbove(max);
+            BitSet bits = new BitSet();
+            for (int i = from; i < to; i++) {
+                bits.set(ordinals[i]);
+            }
+            return bits;
+        }
+
+        private int firstIndexAtLeast(double bound) {
+            int lo = 0, hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] < bound) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        private int firstIndexAbove(double bound) {
+            int lo = 0, hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] <= bound) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.cdaxVideo.Service.Catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory search index over course title, tags, category, sub-category and instructor.
+ *
+ * Field values are tokenized into an inverted index (token → course ids). Bigrams and
+ * trigrams of the token vocabulary point back to vocabulary tokens, so a query that is a
+ * substring of a field narrows to a small candidate set without scanning the catalog.
+ * Candidates are verified against pre-lowercased fields and scored once; the best
+ * {@code catalog.search.max-results} are kept in a bounded heap.
+ *
+ * Scores use the same weights the old per-request relevance sort used: title equals 10,
+ * title contains 5, title prefix +3, tag equals 4, tag contains 2, category 2, sub-category 1.
+ */
+@Service
+public class CourseSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseSearchIndex.class);
+
+    private final CatalogSnapshot catalogSnapshot;
+    private final int maxResults;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedCourse> courses = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<String, Set<String>> bigrams = new HashMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private volatile long indexedVersion;
+
+    public CourseSearchIndex(CatalogSnapshot catalogSnapshot,
+                             @Value("${catalog.search.max-results:100}") int maxResults) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.maxResults = maxResults;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isFullRebuild() || indexedVersion == 0) {
+            replaceAll(catalogSnapshot.getCourseViews(), event.version());
+            return;
+        }
+        Optional<CatalogSnapshot.CourseView> view = catalogSnapshot.findCourseView(event.changedCourseId());
+        lock.writeLock().lock();
+        try {
+            remove(event.changedCourseId());
+            view.ifPresent(this::add);
+            indexedVersion = event.version();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Ids of matching courses, best first, at most {@code catalog.search.max-results}. */
+    public List<Long> search(String keyword) {
+        return search(keyword, maxResults);
+    }
+
+    /** Ids of matching courses, best first, at most {@code limit}; {@code Integer.MAX_VALUE} keeps every match. */
+    public List<Long> search(String keyword, int limit) {
+        if (keyword == null || keyword.trim().isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        String query = keyword.trim().toLowerCase();
+        ensureBuilt();
+
+        // Min-heap on (score, -id): the root is the weakest result kept so far; it grows as
+        // needed, so an unbounded limit does not size it up front
+        PriorityQueue<long[]> heap = new PriorityQueue<>(Math.min(limit, 256) + 1,
+                (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+
+        lock.readLock().lock();
+        try {
+            for (IndexedCourse course : candidates(query)) {
+                if (!course.matches(query)) continue;
+                heap.offer(new long[] { course.score(query), course.id });
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Long[] ids = new Long[heap.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = heap.poll()[1];
+        }
+        return Arrays.asList(ids);
+    }
+
+    // ========== INDEX MAINTENANCE ==========
+
+    private void ensureBuilt() {
+        if (indexedVersion != 0) return;
+        List<CatalogSnapshot.CourseView> views = catalogSnapshot.getCourseViews();
+        if (indexedVersion == 0) {
+            replaceAll(views, catalogSnapshot.getVersion());
+        }
+    }
+
+    private void replaceAll(List<CatalogSnapshot.CourseView> views, long version) {
+        lock.writeLock().lock();
+        try {
+            courses.clear();
+            postings.clear();
+            bigrams.clear();
+            trigrams.clear();
+            for (CatalogSnapshot.CourseView view : views) {
+                add(view);
+            }
+            indexedVersion = version;
+            logger.info("🔎 Search index v{}: {} courses, {} tokens", version, courses.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(CatalogSnapshot.CourseView view) {
+        IndexedCourse course = new IndexedCourse(view);
+        courses.put(course.id, course);
+        for (String token : course.tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids == null) {
+                ids = new HashSet<>();
+                postings.put(token, ids);
+                for (String gram : NGrams.of(token, 2)) bigrams.computeIfAbsent(gram, k -> new HashSet<>()).add(token);
+                for (String gram : NGrams.of(token, 3)) trigrams.computeIfAbsent(gram, k -> new HashSet<>()).add(token);
+            }
+            ids.add(course.id);
+        }
+    }
+
+    private void remove(Long courseId) {
+        IndexedCourse course = courses.remove(courseId);
+        if (course == null) return;
+        for (String token : course.tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids == null) continue;
+            ids.remove(courseId);
+            if (ids.isEmpty()) {
+                postings.remove(token);
+                dropGrams(bigrams, token, 2);
+                dropGrams(trigrams, token, 3);
+            }
+        }
+    }
+
+    private static void dropGrams(Map<String, Set<String>> gramIndex, String token, int n) {
+        for (String gram : NGrams.of(token, n)) {
+            Set<String> tokens = gramIndex.get(gram);
+            if (tokens != null && tokens.remove(token) && tokens.isEmpty()) {
+                gramIndex.remove(gram);
+            }
+        }
+    }
+
+    // ========== QUERY ==========
+
+    // Every alphanumeric run of the query is a substring of some field token of a match
+    private Collection<IndexedCourse> candidates(String query) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return courses.values();
+        }
+
+        Set<Long> result = null;
+        for (String queryToken : queryTokens) {
+            Set<Long> ids = new HashSet<>();
+            for (String token : vocabularyContaining(queryToken)) {
+                ids.addAll(postings.get(token));
+            }
+            if (result == null) {
+                result = ids;
+            } else {
+                result.retainAll(ids);
+            }
+            if (result.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<IndexedCourse> matched = new ArrayList<>(result.size());
+        for (Long id : result) {
+            matched.add(courses.get(id));
+        }
+        return matched;
+    }
+
+    private Collection<String> vocabularyContaining(String queryToken) {
+        if (queryToken.length() == 1) {
+            List<String> tokens = new ArrayList<>();
+            for (String token : postings.keySet()) {
+                if (token.contains(queryToken)) tokens.add(token);
+            }
+            return tokens;
+        }
+
+        Map<String, Set<String>> gramIndex = queryToken.length() == 2 ? bigrams : trigrams;
+        int n = queryToken.length() == 2 ? 2 : 3;
+
+        Set<String> tokens = null;
+        for (String gram : NGrams.of(queryToken, n)) {
+            Set<String> withGram = gramIndex.get(gram);
+            if (withGram == null) return List.of();
+            if (tokens == null) {
+                tokens = new HashSet<>(withGram);
+            } else {
+                tokens.retainAll(withGram);
+            }
+            if (tokens.isEmpty()) return List.of();
+        }
+        tokens.removeIf(token -> !token.contains(queryToken));
+        return tokens;
+    }
+
+    // ========== HELPERS ==========
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase();
+    }
+
+    /** Lowercased searchable fields of one course. */
+    private static final class IndexedCourse {
+        final long id;
+        final String title;
+        final List<String> tags;
+        final String category;
+        final String subCategory;
+        final String instructor;
+        final Set<String> tokens = new HashSet<>();
+
+        IndexedCourse(CatalogSnapshot.CourseView view) {
+            this.id = view.id();
+            this.title = lower(view.title());
+            this.tags = view.tags().stream().map(String::toLowerCase).toList();
+            this.category = lower(view.category());
+            this.subCategory = lower(view.subCategory());
+            this.instructor = lower(view.instructor());
+
+            tokens.addAll(tokenize(title));
+            for (String tag : tags) tokens.addAll(tokenize(tag));
+            tokens.addAll(tokenize(category));
+            tokens.addAll(tokenize(subCategory));
+            tokens.addAll(tokenize(instructor));
+        }
+
+        boolean matches(String query) {
+            if (title != null && title.contains(query)) return true;
+            for (String tag : tags) {
+                if (tag.contains(query)) return true;
+            }
+            return (category != null && category.contains(query))
+                    || (subCategory != null && subCategory.contains(query))
+                    || (instructor != null && instructor.contains(query));
+        }
+
+        int score(String query) {
+            int score = 0;
+            if (title != null) {
+                if (title.equals(query)) {
+                    score += 10;
+                } else if (title.contains(query)) {
+                    score += 5;
+                }
+                if (title.startsWith(query)) {
+                    score += 3;
+                }
+            }
+            for (String tag : tags) {
+                if (tag.equals(query)) {
+                    score += 4;
+                } else if (tag.contains(query)) {
+                    score += 2;
+                }
+            }
+            if (category != null && category.contains(query)) score += 2;
+            if (subCategory != null && subCategory.contains(query)) score += 1;
+            return score;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.cdaxVideo.Service.Catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Character n-gram helpers shared by the catalog indexes.
+ *
+ * Posting lists map an n-gram to the sorted positions of the terms containing it; a fragment
+ * narrows to the terms holding all of its n-grams by intersecting those lists. Callers still
+ * verify the candidates with {@code contains}, since the n-grams need not be adjacent.
+ */
+final class NGrams {
+
+    private static final int[] NONE = new int[0];
+
+    private NGrams() {
+    }
+
+    /** Distinct n-grams of {@code text}. */
+    static Set<String> of(String text, int n) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + n <= text.length(); i++) {
+            grams.add(text.substring(i, i + n));
+        }
+        return grams;
+    }
+
+    /** Posting lists of every n-gram of length {@code minN..maxN}; a term's id is its index in {@code terms}. */
+    static Map<String, int[]> postings(String[] terms, int minN, int maxN) {
+        // Terms are visited in id order, so every list comes out sorted
+        Map<String, List<Integer>> grams = new HashMap<>();
+        for (int id = 0; id < terms.length; id++) {
+            String term = terms[id];
+            for (int n = minN; n <= maxN; n++) {
+                for (int p = 0; p + n <= term.length(); p++) {
+                    List<Integer> ids = grams.computeIfAbsent(term.substring(p, p + n), k -> new ArrayList<>());
+                    if (ids.isEmpty() || ids.get(ids.size() - 1) != id) ids.add(id);
+                }
+            }
+        }
+        Map<String, int[]> postings = new HashMap<>(grams.size() * 2);
+        grams.forEach((gram, ids) -> postings.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+        return postings;
+    }
+
+    /** Ids of the terms containing every n-gram of {@code fragment}, ascending; empty if any is unknown. */
+    static int[] candidates(Map<String, int[]> postings, String fragment, int n) {
+        int[] candidates = null;
+        for (int p = 0; p + n <= fragment.length(); p++) {
+            int[] ids = postings.get(fragment.substring(p, p + n));
+            if (ids == null) return NONE;
+            candidates = candidates == null ? ids : intersect(candidates, ids);
+            if (candidates.length == 0) return candidates;
+        }
+        return candidates == null ? NONE : candidates;
+    }
+
+    /** Intersection of two ascending id lists. */
+    static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else { out[k++] = a[i]; i++; j++; }
+        }
+        return Arrays.copyOf(out, k);
+    }
+}
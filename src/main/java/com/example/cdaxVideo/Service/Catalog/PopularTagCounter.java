@@ -0,0 +1,113 @@
+package com.example.cdaxVideo.Service.Catalog;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Exact tag counters kept in step with the catalog, plus a precomputed top list.
+ *
+ * A catalog change for one course only subtracts that course's previous tags and adds its
+ * current ones; the top list is then re-selected with a bounded min-heap and published
+ * through a volatile field, so reads are a field access.
+ *
+ * With {@code catalog.tags.weight-by-enrollment=true} a course adds
+ * {@code 1 + enrolledStudents} to each of its tags instead of 1.
+ */
+@Service
+public class PopularTagCounter {
+
+    static final int TOP_TAGS = 15;
+
+    private final CatalogSnapshot catalogSnapshot;
+    private final boolean weightByEnrollment;
+
+    private final Map<String, Long> counts = new HashMap<>();
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private volatile List<String> topTags;
+
+    public PopularTagCounter(CatalogSnapshot catalogSnapshot,
+                             @Value("${catalog.tags.weight-by-enrollment:false}") boolean weightByEnrollment) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.weightByEnrollment = weightByEnrollment;
+    }
+
+    @EventListener
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isFullRebuild() || topTags == null) {
+            recountAll();
+            return;
+        }
+        Long courseId = event.changedCourseId();
+        subtract(contributions.remove(courseId));
+        catalogSnapshot.findCourseView(courseId).ifPresent(this::add);
+        topTags = selectTop();
+    }
+
+    /** Most used tags, highest count first. */
+    public List<String> getTopTags() {
+        List<String> top = topTags;
+        if (top == null) {
+            catalogSnapshot.getVersion(); // build the snapshot before taking our lock
+            synchronized (this) {
+                if (topTags == null) recountAll();
+                top = topTags;
+            }
+        }
+        return top;
+    }
+
+    private void recountAll() {
+        counts.clear();
+        contributions.clear();
+        for (CatalogSnapshot.CourseView course : catalogSnapshot.getCourseViews()) {
+            add(course);
+        }
+        topTags = selectTop();
+    }
+
+    private void add(CatalogSnapshot.CourseView course) {
+        long weight = 1L;
+        if (weightByEnrollment && course.enrolledStudents() != null) {
+            weight += Math.max(0, course.enrolledStudents());
+        }
+        Contribution contribution = new Contribution(course.tags(), weight);
+        contributions.put(course.id(), contribution);
+        for (String tag : contribution.tags()) {
+            counts.merge(tag, weight, Long::sum);
+        }
+    }
+
+    private void subtract(Contribution contribution) {
+        if (contribution == null) return;
+        for (String tag : contribution.tags()) {
+            Long remaining = counts.merge(tag, -contribution.weight(), Long::sum);
+            if (remaining != null && remaining <= 0) {
+                counts.remove(tag);
+            }
+        }
+    }
+
+    // Min-heap of size TOP_TAGS: root is the weakest tag still in the top list
+    private List<String> selectTop() {
+        Comparator<Map.Entry<String, Long>> weakestFirst = Map.Entry.<String, Long>comparingByValue()
+                .thenComparing(Map.Entry.<String, Long>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(TOP_TAGS + 1, weakestFirst);
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > TOP_TAGS) {
+                heap.poll();
+            }
+        }
+        String[] top = new String[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll().getKey();
+        }
+        return List.of(top);
+    }
+
+    private record Contribution(List<String> tags, long weight) {
+    }
+}
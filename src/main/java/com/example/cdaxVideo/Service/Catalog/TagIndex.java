@@ -0,0 +1,161 @@
+package com.example.cdaxVideo.Service.Catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Tag dictionary with one course bitmap per tag, rebuilt from the catalog snapshot on change.
+ *
+ * Tags are interned case-insensitively to dense ids; bit {@code i} of a posting is the
+ * i-th course of the snapshot (courses are sorted by id, so results come back in id
+ * order). Partial matches go through a trigram index over the dictionary, and multi-tag
+ * AND / OR lookups are {@link BitSet} intersections and unions.
+ */
+@Service
+public class TagIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagIndex.class);
+
+    private final CatalogSnapshot catalogSnapshot;
+    private volatile Dictionary current;
+
+    public TagIndex(CatalogSnapshot catalogSnapshot) {
+        this.catalogSnapshot = catalogSnapshot;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        current = Dictionary.build(catalogSnapshot.getCourseViews());
+        logger.info("🏷️ Tag index rebuilt for catalog v{}: {} tags", event.version(), current.tagNames.length);
+    }
+
+    /** Courses carrying the tag (case-insensitive exact match), in id order. */
+    public List<Long> coursesWithTag(String tag) {
+        Dictionary dict = dictionary();
+        Integer tagId = dict.tagIds.get(normalize(tag));
+        return tagId == null ? List.of() : dict.toCourseIds(dict.postings[tagId]);
+    }
+
+    /** Courses with at least one tag containing the fragment, in id order. */
+    public List<Long> coursesWithTagContaining(String fragment) {
+        Dictionary dict = dictionary();
+        BitSet courses = new BitSet();
+        for (int tagId : dict.tagsContaining(normalize(fragment))) {
+            courses.or(dict.postings[tagId]);
+        }
+        return dict.toCourseIds(courses);
+    }
+
+    /**
+     * Courses carrying all ({@code matchAll}) or any of the given tags, exact match, in id
+     * order. An unknown tag empties an AND lookup and is ignored by an OR lookup.
+     */
+    public List<Long> coursesWithTags(Collection<String> tags, boolean matchAll) {
+        Dictionary dict = dictionary();
+        BitSet result = null;
+        for (String tag : tags) {
+            if (tag == null || tag.isBlank()) continue;
+            Integer tagId = dict.tagIds.get(normalize(tag));
+            if (tagId == null) {
+                if (matchAll) return List.of();
+                continue;
+            }
+            if (result == null) {
+                result = (BitSet) dict.postings[tagId].clone();
+            } else if (matchAll) {
+                result.and(dict.postings[tagId]);
+            } else {
+                result.or(dict.postings[tagId]);
+            }
+        }
+        return result == null ? List.of() : dict.toCourseIds(result);
+    }
+
+    private Dictionary dictionary() {
+        Dictionary dict = current;
+        if (dict == null) {
+            dict = Dictionary.build(catalogSnapshot.getCourseViews());
+            current = dict;
+        }
+        return dict;
+    }
+
+    private static String normalize(String tag) {
+        return tag == null ? "" : tag.trim().toLowerCase();
+    }
+
+    // ========== IMMUTABLE DICTIONARY ==========
+
+    private static final class Dictionary {
+        final long[] courseIds;
+        final Map<String, Integer> tagIds;
+        final String[] tagNames;
+        final BitSet[] postings;
+        final Map<String, int[]> trigrams;
+
+        private Dictionary(long[] courseIds, Map<String, Integer> tagIds, String[] tagNames,
+                           BitSet[] postings, Map<String, int[]> trigrams) {
+            this.courseIds = courseIds;
+            this.tagIds = tagIds;
+            this.tagNames = tagNames;
+            this.postings = postings;
+            this.trigrams = trigrams;
+        }
+
+        static Dictionary build(List<CatalogSnapshot.CourseView> courses) {
+            long[] courseIds = new long[courses.size()];
+            Map<String, Integer> tagIds = new HashMap<>();
+            List<String> tagNames = new ArrayList<>();
+            List<BitSet> postings = new ArrayList<>();
+
+            for (int ordinal = 0; ordinal < courses.size(); ordinal++) {
+                CatalogSnapshot.CourseView course = courses.get(ordinal);
+                courseIds[ordinal] = course.id();
+                for (String tag : course.tags()) {
+                    String key = normalize(tag);
+                    if (key.isEmpty()) continue;
+                    Integer tagId = tagIds.get(key);
+                    if (tagId == null) {
+                        tagId = tagNames.size();
+                        tagIds.put(key, tagId);
+                        tagNames.add(key);
+                        postings.add(new BitSet());
+                    }
+                    postings.get(tagId).set(ordinal);
+                }
+            }
+
+            String[] names = tagNames.toArray(new String[0]);
+            return new Dictionary(courseIds, Map.copyOf(tagIds), names,
+                    postings.toArray(new BitSet[0]), NGrams.postings(names, 3, 3));
+        }
+
+        int[] tagsContaining(String fragment) {
+            if (fragment.isEmpty()) {
+                return new int[0];
+            }
+            if (fragment.length() < 3) {
+                // Short fragments: the dictionary is small, scan it
+                return IntStream.range(0, tagNames.length)
+                        .filter(id -> tagNames[id].contains(fragment))
+                        .toArray();
+            }
+
+            int[] candidates = NGrams.candidates(trigrams, fragment, 3);
+            return Arrays.stream(candidates).filter(id -> tagNames[id].contains(fragment)).toArray();
+        }
+
+        List<Long> toCourseIds(BitSet ordinals) {
+            List<Long> ids = new ArrayList<>(ordinals.cardinality());
+            for (int i = ordinals.nextSetBit(0); i >= 0; i = ordinals.nextSetBit(i + 1)) {
+                ids.add(courseIds[i]);
+            }
+            return ids;
+        }
+    }
+}
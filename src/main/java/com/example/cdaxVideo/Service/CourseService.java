@@ -4,6 +4,19 @@ import com.example.cdaxVideo.DTO.CourseResponseDTO;
 import com.example.cdaxVideo.Entity.*;
 import com.example.cdaxVideo.Entity.Module;
 import com.example.cdaxVideo.Repository.*;
+import com.example.cdaxVideo.Service.Catalog.AutocompleteIndex;
+import com.example.cdaxVideo.Service.Catalog.CatalogSnapshot;
+import com.example.cdaxVideo.Service.Catalog.CourseAggregates;
+import com.example.cdaxVideo.Service.Catalog.CourseFacetIndex;
+import com.example.cdaxVideo.Service.Catalog.CourseSearchIndex;
+import com.example.cdaxVideo.Service.Catalog.PopularTagCounter;
+import com.example.cdaxVideo.Service.Catalog.TagIndex;
+import com.example.cdaxVideo.Service.Grading.AnswerKeyCache;
+import com.example.cdaxVideo.Service.Grading.GradingEngine;
+import com.example.cdaxVideo.Service.Grading.GradingResult;
+import com.example.cdaxVideo.Service.Progress.AssessmentEligibilityService;
+import com.example.cdaxVideo.Service.Progress.CourseProgressRollupService;
+import com.example.cdaxVideo.Service.Progress.ModuleVideoStateService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,6 +43,20 @@ public class CourseService {
     @Autowired private UserModuleProgressRepository userModuleProgressRepository;
     @Autowired private UserAssessmentProgressRepository userAssessmentProgressRepository;
     @Autowired private UserCoursePurchaseRepository userCoursePurchaseRepository;
+    @Autowired private ProgressOverlayService progressOverlayService;
+    @Autowired private CatalogSnapshot catalogSnapshot;
+    @Autowired private CourseSearchIndex courseSearchIndex;
+    @Autowired private AutocompleteIndex autocompleteIndex;
+    @Autowired private PopularTagCounter popularTagCounter;
+    @Autowired private TagIndex tagIndex;
+    @Autowired private CourseFacetIndex courseFacetIndex;
+    @Autowired private CourseAggregates courseAggregates;
+    @Autowired private ProgressAggregationRepository progressAggregationRepository;
+    @Autowired private CourseProgressRollupService courseProgressRollup;
+    @Autowired private ModuleVideoStateService moduleVideoState;
+    @Autowired private AssessmentEligibilityService assessmentEligibility;
+    @Autowired private AnswerKeyCache answerKeyCache;
+    @Autowired private GradingEngine gradingEngine;
     @PersistenceContext
 private EntityManager entityManager;
 
@@ -73,71 +100,22 @@ private EntityManager entityManager;
     }
 
     public Course saveCourse(Course course) {
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        catalogSnapshot.requestRebuild(saved.getId());
+        return saved;
     }
 
-@Transactional(readOnly = true)
+/**
+ * All courses with modules and videos, served from the in-memory catalog snapshot.
+ */
 public List<Course> getAllCoursesWithModulesAndVideos() {
-    logger.info("📚 Getting all courses with modules and videos");
-    
-    try {
-        // Get courses WITHOUT videos initially
-        List<Course> courses = courseRepository.findAllWithModules();
-        logger.info("📚 Found {} courses", courses.size());
-        
-        for (Course course : courses) {
-            logger.debug("   ├─ Loading videos for course: {}", course.getTitle());
-            
-            for (Module module : course.getModules()) {
-                // Get videos separately
-                List<Video> videos = videoRepository.findByModuleId(module.getId());
-                
-                // Use the FIXED setVideos method
-                module.setVideos(videos);
-            }
-        }
-        
-        logger.info("✅ All courses loaded successfully");
-        return courses;
-        
-    } catch (Exception e) {
-        logger.error("❌ ERROR in getAllCoursesWithModulesAndVideos:", e);
-        return new ArrayList<>();
-    }
+    List<Course> courses = catalogSnapshot.getCourses();
+    logger.debug("📚 Catalog snapshot v{}: {} courses", catalogSnapshot.getVersion(), courses.size());
+    return courses;
 }
 
 public Optional<Course> getCourseByIdWithModulesAndVideos(Long id) {
-    logger.info("📚 Getting course with modules and videos for ID: {}", id);
-    
-    try {
-        // Get course WITHOUT videos initially
-        Optional<Course> optionalCourse = courseRepository.findByIdWithModules(id);
-        
-        if (optionalCourse.isPresent()) {
-            Course course = optionalCourse.get();
-            logger.info("📚 Course found: {} ({} modules)", 
-                       course.getTitle(), course.getModules().size());
-            
-            // Load videos for each module using the FIXED setVideos method
-            for (Module module : course.getModules()) {
-                // Get videos separately
-                List<Video> videos = videoRepository.findByModuleId(module.getId());
-                logger.debug("   ├─ Module {}: {} videos found", 
-                           module.getId(), videos.size());
-                
-                // Use the FIXED setVideos method that doesn't replace the collection
-                module.setVideos(videos);
-            }
-            
-            logger.info("✅ Course data loaded successfully");
-        }
-        
-        return optionalCourse;
-        
-    } catch (Exception e) {
-        logger.error("❌ ERROR in getCourseByIdWithModulesAndVideos:", e);
-        return Optional.empty();
-    }
+    return catalogSnapshot.findCourse(id);
 }
 
 // In CourseService.java
@@ -146,7 +124,7 @@ public List<Course> getPublicCourses() {
     
     try {
         // Get all courses with basic information (without sensitive data)
-        List<Course> courses = courseRepository.findAll();
+        List<Course> courses = catalogSnapshot.getCourses();
         
         // Clear any user-specific data for public access
         for (Course course : courses) {
@@ -172,137 +150,26 @@ public List<Course> getPublicCourses() {
     }
 }
     
-    // FIXED: Enhanced search with keyword support
-    @Transactional(readOnly = true)
+    // Enhanced search served by the in-memory search index (best matches first)
     public List<Course> enhancedSearch(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return getAllCoursesWithModulesAndVideos();
         }
         
-        String searchTerm = keyword.trim().toLowerCase();
-        List<Course> allCourses = getAllCoursesWithModulesAndVideos();
-        
-        return allCourses.stream()
-            .filter(course -> {
-                // Check title
-                if (course.getTitle() != null && course.getTitle().toLowerCase().contains(searchTerm)) {
-                    return true;
-                }
-                
-                // Check tags
-                if (course.getTags() != null) {
-                    for (String tag : course.getTags()) {
-                        if (tag.toLowerCase().contains(searchTerm)) {
-                            return true;
-                        }
-                    }
-                }
-                
-                // Check category
-                if (course.getCategory() != null && course.getCategory().toLowerCase().contains(searchTerm)) {
-                    return true;
-                }
-                
-                // Check subcategory
-                if (course.getSubCategory() != null && course.getSubCategory().toLowerCase().contains(searchTerm)) {
-                    return true;
-                }
-                
-                // Check instructor
-                if (course.getInstructor() != null && course.getInstructor().toLowerCase().contains(searchTerm)) {
-                    return true;
-                }
-                
-                return false;
-            })
-            .sorted((c1, c2) -> {
-                int score1 = calculateRelevance(c1, searchTerm);
-                int score2 = calculateRelevance(c2, searchTerm);
-                return Integer.compare(score2, score1);
-            })
-            .collect(Collectors.toList());
-    }
-
-    // FIXED: Helper method for relevance scoring
-    private int calculateRelevance(Course course, String searchTerm) {
-        int score = 0;
-        String searchLower = searchTerm.toLowerCase();
-        
-        // Title matches
-        if (course.getTitle() != null) {
-            String titleLower = course.getTitle().toLowerCase();
-            if (titleLower.equals(searchLower)) {
-                score += 10;
-            } else if (titleLower.contains(searchLower)) {
-                score += 5;
-            }
-            if (titleLower.startsWith(searchLower)) {
-                score += 3;
-            }
-        }
-        
-        // Tag matches
-        if (course.getTags() != null) {
-            for (String tag : course.getTags()) {
-                String tagLower = tag.toLowerCase();
-                if (tagLower.equals(searchLower)) {
-                    score += 4;
-                } else if (tagLower.contains(searchLower)) {
-                    score += 2;
-                }
-            }
-        }
-        
-        // Category matches
-        if (course.getCategory() != null && course.getCategory().toLowerCase().contains(searchLower)) {
-            score += 2;
-        }
-        
-        // Subcategory matches
-        if (course.getSubCategory() != null && course.getSubCategory().toLowerCase().contains(searchLower)) {
-            score += 1;
-        }
-        
-        return score;
+        return coursesFromSnapshot(courseSearchIndex.search(keyword));
     }
 
-    // FIXED: Get search suggestions (for autocomplete)
+    // Search suggestions (autocomplete) served by the in-memory autocomplete index
     public List<String> getSearchSuggestions(String query) {
         if (query == null || query.length() < 2) {
             return new ArrayList<>();
         }
         
         String queryLower = query.toLowerCase();
-        List<String> suggestions = new ArrayList<>();
-        List<Course> allCourses = courseRepository.findAll();
         
-        // Get course titles starting with query
-        for (Course course : allCourses) {
-            if (suggestions.size() >= 5) break;
-            if (course.getTitle() != null && course.getTitle().toLowerCase().startsWith(queryLower)) {
-                suggestions.add(course.getTitle());
-            }
-        }
-        
-        // Get matching tags
-        Set<String> tagSuggestions = new HashSet<>();
-        for (Course course : allCourses) {
-            if (course.getTags() != null) {
-                for (String tag : course.getTags()) {
-                    if (tag.toLowerCase().contains(queryLower)) {
-                        tagSuggestions.add(tag);
-                    }
-                }
-            }
-        }
-        
-        // Add tags to suggestions (limit to 5)
-        int tagCount = 0;
-        for (String tag : tagSuggestions) {
-            if (tagCount >= 5) break;
-            suggestions.add(tag);
-            tagCount++;
-        }
+        // Course titles starting with query, then tags containing it (5 each, heaviest first)
+        List<String> suggestions = new ArrayList<>(autocompleteIndex.titlesStartingWith(queryLower, 5));
+        suggestions.addAll(autocompleteIndex.tagsContaining(queryLower, 5));
         
         // If no suggestions, add popular tags
         if (suggestions.isEmpty()) {
@@ -319,29 +186,12 @@ public List<Course> getPublicCourses() {
             .collect(Collectors.toList());
     }
 
-    // FIXED: Get popular tags for display
+    // Popular tags for display, precomputed by the tag counter
     public List<String> getPopularTags() {
-        List<Course> allCourses = getAllCoursesWithModulesAndVideos();
-        Map<String, Integer> tagCount = new HashMap<>();
-        
-        // Count tag occurrences
-        for (Course course : allCourses) {
-            if (course.getTags() != null) {
-                for (String tag : course.getTags()) {
-                    tagCount.put(tag, tagCount.getOrDefault(tag, 0) + 1);
-                }
-            }
-        }
-        
-        // Sort by frequency and get top tags
-        return tagCount.entrySet().stream()
-            .sorted((e1, e2) -> e2.getValue() - e1.getValue())
-            .map(Map.Entry::getKey)
-            .limit(15)
-            .collect(Collectors.toList());
+        return popularTagCounter.getTopTags();
     }
 
-    // FIXED: Get courses by specific tag
+    // Courses by tag: exact match first, then partial match, both from the tag index
 public List<Course> getCoursesByTag(String tagName) {
     logger.info("🔍 Searching for courses with tag: '{}'", tagName);
     
@@ -350,90 +200,58 @@ public List<Course> getCoursesByTag(String tagName) {
         return new ArrayList<>();
     }
     
-    String cleanTag = tagName.trim().toLowerCase();
-    logger.info("🔍 Cleaned tag for search: '{}'", cleanTag);
+    List<Long> courseIds = tagIndex.coursesWithTag(tagName);
+    logger.info("✅ Exact matches found: {}", courseIds.size());
     
-    try {
-        // Method 1: Try exact match first
-        logger.info("🔍 Trying exact tag match...");
-        List<Course> exactMatches = courseRepository.findByTagExact(cleanTag);
-        logger.info("✅ Exact matches found: {}", exactMatches.size());
-        
-        if (!exactMatches.isEmpty()) {
-            // Load modules for each course
-            for (Course course : exactMatches) {
-                List<Module> modules = moduleRepository.findByCourseId(course.getId());
-                course.setModules(modules);
-            }
-            return exactMatches;
-        }
-        
-        // Method 2: Try partial match
-        logger.info("🔍 Trying partial tag match...");
-        List<Course> partialMatches = courseRepository.findByTagContaining(cleanTag);
-        logger.info("✅ Partial matches found: {}", partialMatches.size());
-        
-        if (!partialMatches.isEmpty()) {
-            // Load modules for each course
-            for (Course course : partialMatches) {
-                List<Module> modules = moduleRepository.findByCourseId(course.getId());
-                course.setModules(modules);
-            }
-            return partialMatches;
+    if (courseIds.isEmpty()) {
+        courseIds = tagIndex.coursesWithTagContaining(tagName);
+        logger.info("✅ Partial matches found: {}", courseIds.size());
+    }
+    
+    return coursesFromSnapshot(courseIds);
+}
+
+    // Courses carrying all (matchAll) or any of the given tags
+    public List<Course> getCoursesByTags(List<String> tags, boolean matchAll) {
+        if (tags == null || tags.isEmpty()) {
+            return new ArrayList<>();
         }
-        
-        // Method 3: Fallback - Direct native query
-        logger.info("🔍 Trying native query fallback...");
-        String nativeQuery = """
-            SELECT DISTINCT c.* FROM courses c 
-            JOIN course_tags ct ON c.id = ct.course_id 
-            WHERE LOWER(ct.tag) LIKE CONCAT('%', :tag, '%')
-            ORDER BY c.id
-            """;
-        
-        @SuppressWarnings("unchecked")
-        List<Course> nativeMatches = entityManager.createNativeQuery(nativeQuery, Course.class)
-            .setParameter("tag", cleanTag)
-            .getResultList();
-        
-        logger.info("✅ Native query matches found: {}", nativeMatches.size());
-        
-        // Load modules for each course
-        for (Course course : nativeMatches) {
-            List<Module> modules = moduleRepository.findByCourseId(course.getId());
-            course.setModules(modules);
+        return coursesFromSnapshot(tagIndex.coursesWithTags(tags, matchAll));
+    }
+
+    // Courses for the given ids from the catalog snapshot, in the given order
+    public List<Course> getCoursesByIds(List<Long> courseIds) {
+        return coursesFromSnapshot(courseIds);
+    }
+
+    private List<Course> coursesFromSnapshot(List<Long> courseIds) {
+        List<Course> courses = new ArrayList<>(courseIds.size());
+        for (Long courseId : courseIds) {
+            catalogSnapshot.findCourse(courseId).ifPresent(courses::add);
         }
-        
-        return nativeMatches;
-        
-    } catch (Exception e) {
-        logger.error("❌ ERROR searching courses by tag '{}': {}", cleanTag, e.getMessage(), e);
-        return new ArrayList<>();
+        return courses;
     }
-}
 
-    // FIXED: Advanced search with filters
+    // Advanced search: keyword matches narrowed by the facet index
     public List<Course> advancedSearch(String keyword, String category, 
                                        Double minPrice, Double maxPrice, 
                                        Double minRating, String level) {
-        // Start with search results or all courses
-        List<Course> results = keyword != null && !keyword.isEmpty() 
-            ? enhancedSearch(keyword) 
-            : getAllCoursesWithModulesAndVideos();
-        
-        // Apply filters
-        return results.stream()
-            .filter(course -> category == null || category.isEmpty() || 
-                     (course.getCategory() != null && course.getCategory().equalsIgnoreCase(category)))
-            .filter(course -> minPrice == null || 
-                     (course.getPrice() != null && course.getPrice() >= minPrice))
-            .filter(course -> maxPrice == null || 
-                     (course.getPrice() != null && course.getPrice() <= maxPrice))
-            .filter(course -> minRating == null || 
-                     (course.getRating() != null && course.getRating() >= minRating))
-            .filter(course -> level == null || level.isEmpty() || 
-                     (course.getLevel() != null && course.getLevel().equalsIgnoreCase(level)))
-            .collect(Collectors.toList());
+        return coursesFromSnapshot(advancedSearchWithFacets(
+                keyword, category, minPrice, maxPrice, minRating, level).courseIds());
+    }
+
+    /**
+     * Filtered course ids (relevance order with a keyword, id order without) plus
+     * category and level counts for filter chips.
+     */
+    public CourseFacetIndex.FacetResult advancedSearchWithFacets(String keyword, String category,
+                                                                 Double minPrice, Double maxPrice,
+                                                                 Double minRating, String level) {
+        // Every match, not just the top results, so filters and facet counts see all of them
+        List<Long> candidates = keyword != null && !keyword.isBlank()
+            ? courseSearchIndex.search(keyword, Integer.MAX_VALUE)
+            : null;
+        return courseFacetIndex.filter(candidates, category, minPrice, maxPrice, minRating, level);
     }
 
     // FIXED: Keep your original searchCourses method for backward compatibility
@@ -443,10 +261,8 @@ public List<Course> getCoursesByTag(String tagName) {
 
     // Fetch courses user has NOT purchased yet
 public List<CourseResponseDTO> getAvailableCoursesForUser(Long userId) {
-    List<Course> allCourses = courseRepository.findAllWithModules();
-    List<Course> purchased = getCoursesForUser(userId);
-
-    Set<Long> purchasedIds = purchased.stream().map(Course::getId).collect(Collectors.toSet());
+    List<Course> allCourses = catalogSnapshot.getCourses();
+    Set<Long> purchasedIds = new HashSet<>(userCoursePurchaseRepository.findCourseIdsByUserId(userId));
 
     List<Course> available = new ArrayList<>();
     for (Course c : allCourses) {
@@ -457,23 +273,16 @@ public List<CourseResponseDTO> getAvailableCoursesForUser(Long userId) {
     return available.stream().map(CourseResponseDTO::new).collect(Collectors.toList());
 }
 
-// Dashboard stats for cards
+// Dashboard stats for cards, from the user's progress rollups
 public Map<String, Object> getDashboardStats(Long userId) {
-    List<Course> courses = getCoursesForUser(userId);
-
-    int totalCourses = courses.size();
-    int inProgress = (int) courses.stream()
-            .filter(c -> c.getModules().stream()
-                    .anyMatch(m -> m.getVideos().stream().anyMatch(v -> !v.isLocked() && !v.isCompleted()))
-            ).count();
-    int totalVideos = courses.stream()
-            .mapToInt(c -> c.getModules().stream()
-                    .mapToInt(m -> m.getVideos().size()).sum())
-            .sum();
-    int completedVideos = courses.stream()
-            .mapToInt(c -> c.getModules().stream()
-                    .mapToInt(m -> (int) m.getVideos().stream().filter(Video::isCompleted).count()).sum())
-            .sum();
+    List<UserCourseProgress> rollups = courseProgressRollup.getForUser(userId);
+
+    int totalCourses = rollups.size();
+    int inProgress = (int) rollups.stream()
+            .filter(r -> r.getCompletedVideos() < r.getTotalVideos())
+            .count();
+    int totalVideos = rollups.stream().mapToInt(UserCourseProgress::getTotalVideos).sum();
+    int completedVideos = rollups.stream().mapToInt(UserCourseProgress::getCompletedVideos).sum();
     int progressPercent = totalVideos == 0 ? 0 : (completedVideos * 100 / totalVideos);
 
     Map<String,Object> stats = new HashMap<>();
@@ -491,7 +300,9 @@ public Map<String, Object> getDashboardStats(Long userId) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid courseId"));
         module.setCourse(course);
-        return moduleRepository.save(module);
+        Module saved = moduleRepository.save(module);
+        catalogSnapshot.requestRebuild(courseId);
+        return saved;
     }
 
     @Transactional(readOnly = true) 
@@ -508,7 +319,9 @@ public Map<String, Object> getDashboardStats(Long userId) {
         Module module = moduleRepository.findById(moduleId)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid moduleId"));
         video.setModule(module);
-        return videoRepository.save(video);
+        Video saved = videoRepository.save(video);
+        catalogSnapshot.requestRebuild(module.getCourse() != null ? module.getCourse().getId() : null);
+        return saved;
     }
 
     public List<Video> getVideosByModuleId(Long moduleId) {
@@ -520,7 +333,10 @@ public Map<String, Object> getDashboardStats(Long userId) {
         Module module = moduleRepository.findById(moduleId)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid moduleId"));
         assessment.setModule(module);
-        return assessmentRepository.save(assessment);
+        Assessment saved = assessmentRepository.save(assessment);
+        answerKeyCache.invalidate(saved.getId());
+        catalogSnapshot.requestRebuild(module.getCourse() != null ? module.getCourse().getId() : null);
+        return saved;
     }
 
     public List<Assessment> getAssessmentsByModuleId(Long moduleId) {
@@ -528,6 +344,10 @@ public Map<String, Object> getDashboardStats(Long userId) {
     }
     //-----------------------------------------------------------------------------
 
+/**
+ * Grade a submission against the cached answer key and record it.
+ * Question rows are not read; the user is checked by id, assessment and module are only referenced by id.
+ */
 @Transactional(rollbackFor = Exception.class)
 public Map<String, Object> submitAssessment(
         Long userId,
@@ -535,66 +355,40 @@ public Map<String, Object> submitAssessment(
         Map<Long, String> answers) {
     
     try {
-        System.out.println("=== ASSESSMENT SUBMIT START ===");
-        
-        // 1. Basic validation
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Assessment assessment = assessmentRepository.findById(assessmentId)
+        // 1. Basic validation; an unknown user must fail here, not as a foreign key
+        // violation that would leave the transaction rollback-only
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        CatalogSnapshot.AssessmentView assessmentView = catalogSnapshot.findAssessment(assessmentId)
                 .orElseThrow(() -> new RuntimeException("Assessment not found"));
-        Module module = assessment.getModule(); // Get the module
+        Long moduleId = assessmentView.moduleId();
+        Long courseId = catalogSnapshot.findModule(moduleId)
+                .map(CatalogSnapshot.ModuleView::courseId)
+                .orElse(null);
         
         // 2. Calculate score
-        List<Question> questions = questionRepository.findByAssessmentId(assessmentId);
-        int totalMarks = 0;
-        int obtainedMarks = 0;
-        
-        // 🆕 Store question-by-question results
-        List<Map<String, Object>> questionResults = new ArrayList<>();
-        
-        for (Question q : questions) {
-            totalMarks += q.getMarks();
-            String userAnswer = answers.get(q.getId());
-            boolean isCorrect = userAnswer != null && userAnswer.equalsIgnoreCase(q.getCorrectAnswer());
-            
-            if (isCorrect) {
-                obtainedMarks += q.getMarks();
-            }
-            
-            // Store question result
-            Map<String, Object> qResult = new HashMap<>();
-            qResult.put("questionId", q.getId());
-            qResult.put("userAnswer", userAnswer);
-            qResult.put("correctAnswer", q.getCorrectAnswer());
-            qResult.put("correct", isCorrect);
-            qResult.put("marks", q.getMarks());
-            questionResults.add(qResult);
-        }
-        
-        double percentage = (double) obtainedMarks / totalMarks * 100;
-        boolean passed = percentage >= 70.0;
-        
-        System.out.println("Score: " + obtainedMarks + "/" + totalMarks + " = " + percentage + "%");
-        
-        // 3. **FORCE CREATE/UPDATE ASSESSMENT PROGRESS**
-        Optional<UserAssessmentProgress> existing = userAssessmentProgressRepository
-                .findByUserAndAssessment(user, assessment);
-        
-        UserAssessmentProgress progress;
-        
-        if (existing.isPresent()) {
-            progress = existing.get();
-            System.out.println("Found existing progress, ID=" + progress.getId());
-        } else {
-            System.out.println("Creating new assessment progress row");
-            progress = new UserAssessmentProgress();
-            progress.setUser(user);
-            progress.setAssessment(assessment);
-            progress.setUnlocked(true);
-            progress.setUnlockedOn(new Date());
-            progress = userAssessmentProgressRepository.save(progress);
-            System.out.println("New progress saved with ID=" + progress.getId());
-        }
+        GradingResult grading = gradingEngine.grade(assessmentId, answers);
+        int obtainedMarks = grading.obtainedMarks();
+        int totalMarks = grading.totalMarks();
+        double percentage = grading.percentage();
+        boolean passed = grading.passed();
+        
+        logger.debug("Assessment {} user {} score: {}/{} = {}%", assessmentId, userId, obtainedMarks, totalMarks, percentage);
+        
+        // 3. Create or update assessment progress
+        User user = userRepository.getReferenceById(userId);
+        Assessment assessment = assessmentRepository.getReferenceById(assessmentId);
+        UserAssessmentProgress progress = userAssessmentProgressRepository
+                .findByUserAndAssessment(user, assessment)
+                .orElseGet(() -> {
+                    UserAssessmentProgress created = new UserAssessmentProgress();
+                    created.setUser(user);
+                    created.setAssessment(assessment);
+                    created.setUnlocked(true);
+                    created.setUnlockedOn(new Date());
+                    return created;
+                });
         
         // 4. Update assessment progress fields
         progress.setAttempts(progress.getAttempts() == null ? 1 : progress.getAttempts() + 1);
@@ -608,58 +402,29 @@ public Map<String, Object> submitAssessment(
             progress.setPassedOn(new Date());
         }
         
-        // 5. **FORCE SAVE ASSESSMENT PROGRESS**
+        // 5. Save assessment progress
         userAssessmentProgressRepository.saveAndFlush(progress);
-        System.out.println("Assessment progress updated successfully, ID=" + progress.getId());
+        assessmentEligibility.evictModule(userId, moduleId);
         
-        // 6. **UPDATE MODULE PROGRESS IF ASSESSMENT PASSED**
-        boolean moduleCompleted = false;
-        if (passed && module != null) {
-            try {
-                Optional<UserModuleProgress> moduleProgressOpt = userModuleProgressRepository
-                    .findByUserAndModule(user, module);
-                
-                UserModuleProgress moduleProgress;
-                if (moduleProgressOpt.isPresent()) {
-                    moduleProgress = moduleProgressOpt.get();
-                    System.out.println("Found existing module progress");
-                } else {
-                    moduleProgress = new UserModuleProgress();
-                    moduleProgress.setUser(user);
-                    moduleProgress.setModule(module);
-                    System.out.println("Creating new module progress");
-                }
-                
-                // Mark module as completed
-                moduleProgress.markAsCompleted();
-                moduleProgress.setAssessmentPassed(true);
-                moduleProgress.setAssessmentPassedOn(new Date());
-                
-                userModuleProgressRepository.save(moduleProgress);
-                moduleCompleted = true;
-                System.out.println("✅ Module marked as completed!");
-                
-            } catch (Exception e) {
-                System.err.println("❌ Module progress update failed: " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
+        // 6. Update module progress if assessment passed
+        boolean moduleCompleted = passed && completeModuleAfterPass(userId, moduleId);
+        
+        // Rollup row changes with the pass flag and module completion
+        courseProgressRollup.refresh(userId, courseId);
         
         // 7. Unlock next module if passed
         boolean nextModuleUnlocked = false;
-        if (passed && module != null) {
+        if (passed && courseId != null) {
             try {
-                nextModuleUnlocked = unlockNextModuleAfterPassing(
-                    userId,
-                    module.getCourse().getId(),
-                    module.getId()
-                );
-                System.out.println("Next module unlocked: " + nextModuleUnlocked);
+                nextModuleUnlocked = unlockNextModuleAfterPassing(userId, courseId, moduleId);
             } catch (Exception e) {
-                System.err.println("Module unlock failed (non-critical): " + e.getMessage());
+                logger.warn("⚠️ Module unlock failed (non-critical): {}", e.getMessage());
             }
         }
         
+        logger.info("📝 Assessment {} submitted by user {}: {}% passed={} nextModuleUnlocked={}",
+                   assessmentId, userId, String.format("%.1f", percentage), passed, nextModuleUnlocked);
+        
         // 8. Return comprehensive response
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -669,17 +434,15 @@ public Map<String, Object> submitAssessment(
         response.put("percentage", percentage);
         response.put("nextModuleUnlocked", nextModuleUnlocked);
         response.put("moduleCompleted", moduleCompleted);
-        response.put("questionResults", questionResults);
+        response.put("questionResults", grading.questionResults());
         response.put("message", passed 
             ? "Congratulations! You passed with " + String.format("%.1f", percentage) + "%!" 
             : "You scored " + String.format("%.1f", percentage) + "%. Need 70% to pass. Try again!");
         
-        System.out.println("=== ASSESSMENT SUBMIT END ===");
         return response;
         
     } catch (Exception e) {
-        System.err.println("❌ FATAL ERROR in submitAssessment:");
-        e.printStackTrace();
+        logger.error("❌ Submitting assessment {} for user {} failed: {}", assessmentId, userId, e.getMessage(), e);
         
         Map<String, Object> errorResponse = new HashMap<>();
         errorResponse.put("success", false);
@@ -688,6 +451,36 @@ public Map<String, Object> submitAssessment(
     }
 }
 
+/**
+ * Mark the module completed for the user after one of its assessments was passed.
+ * Returns false (and logs) if the module progress could not be written.
+ */
+@Transactional
+public boolean completeModuleAfterPass(Long userId, Long moduleId) {
+    try {
+        User user = userRepository.getReferenceById(userId);
+        Module module = moduleRepository.getReferenceById(moduleId);
+        UserModuleProgress moduleProgress = userModuleProgressRepository
+                .findByUserAndModule(user, module)
+                .orElseGet(() -> {
+                    UserModuleProgress created = new UserModuleProgress();
+                    created.setUser(user);
+                    created.setModule(module);
+                    return created;
+                });
+        
+        moduleProgress.markAsCompleted();
+        moduleProgress.setAssessmentPassed(true);
+        moduleProgress.setAssessmentPassedOn(new Date());
+        
+        userModuleProgressRepository.save(moduleProgress);
+        return true;
+    } catch (Exception e) {
+        logger.error("❌ Module progress update failed for user {} module {}: {}", userId, moduleId, e.getMessage(), e);
+        return false;
+    }
+}
+
 /**
  * Unlock next module after passing assessment (≥70%)
  */
@@ -802,35 +595,27 @@ public boolean unlockNextModuleAfterPassing(
  * Get assessment status for a user
  */
 public Map<String, Object> getAssessmentStatus(Long userId, Long assessmentId) {
-    User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-    
-    Assessment assessment = assessmentRepository.findById(assessmentId)
+    CatalogSnapshot.AssessmentView assessment = catalogSnapshot.findAssessment(assessmentId)
             .orElseThrow(() -> new RuntimeException("Assessment not found"));
-    
-    Optional<UserAssessmentProgress> progressOpt = userAssessmentProgressRepository
-            .findByUserAndAssessment(user, assessment);
+    AssessmentEligibilityService.Eligibility eligibility = assessmentEligibility.get(userId, assessmentId);
     
     Map<String, Object> status = new HashMap<>();
     status.put("assessmentId", assessmentId);
-    status.put("assessmentTitle", assessment.getTitle());
-    status.put("totalMarks", assessment.getTotalMarks());
-    
-    if (progressOpt.isPresent()) {
-        UserAssessmentProgress progress = progressOpt.get();
-        status.put("unlocked", progress.getUnlocked());
-        status.put("attempts", progress.getAttempts());
-        status.put("passed", progress.isPassed());
-        status.put("obtainedMarks", progress.getObtainedMarks());
-        status.put("totalMarksAttempted", progress.getTotalMarks());
-        status.put("percentage", progress.getPercentage());
-        status.put("lastSubmitted", progress.getSubmittedOn());
-        status.put("passedOn", progress.getPassedOn());
-        status.put("unlockedOn", progress.getUnlockedOn());
-        
-        // Calculate if user can retake
-        boolean canRetake = Boolean.TRUE.equals(progress.getUnlocked()) && !progress.isPassed();
-        status.put("canRetake", canRetake);
+    status.put("assessmentTitle", assessment.title());
+    status.put("totalMarks", assessment.totalMarks());
+    status.put("canAttempt", eligibility.canAttempt());
+    
+    if (eligibility.hasProgress()) {
+        status.put("unlocked", eligibility.unlocked());
+        status.put("attempts", eligibility.attempts());
+        status.put("passed", eligibility.passed());
+        status.put("obtainedMarks", eligibility.obtainedMarks());
+        status.put("totalMarksAttempted", eligibility.totalMarksAttempted());
+        status.put("percentage", eligibility.percentage());
+        status.put("lastSubmitted", eligibility.lastSubmitted());
+        status.put("passedOn", eligibility.passedOn());
+        status.put("unlockedOn", eligibility.unlockedOn());
+        status.put("canRetake", eligibility.canRetake());
     } else {
         status.put("unlocked", false);
         status.put("attempts", 0);
@@ -842,47 +627,11 @@ public Map<String, Object> getAssessmentStatus(Long userId, Long assessmentId) {
 }
 
 /**
- * Check if user can attempt assessment (all videos completed)
+ * Check if user can attempt assessment (all videos completed).
+ * Answered from the eligibility cache; see {@link AssessmentEligibilityService}.
  */
 public boolean canAttemptAssessment(Long userId, Long assessmentId) {
-    User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-    
-    Assessment assessment = assessmentRepository.findById(assessmentId)
-            .orElseThrow(() -> new RuntimeException("Assessment not found"));
-    
-    Module module = assessment.getModule();
-    
-    // Check if assessment is unlocked for user
-    Optional<UserAssessmentProgress> progressOpt = userAssessmentProgressRepository
-            .findByUserAndAssessment(user, assessment);
-    
-    if (progressOpt.isPresent() && Boolean.TRUE.equals(progressOpt.get().getUnlocked())) {
-        // Check if user already passed
-        if (progressOpt.get().isPassed()) {
-            return false; // Already passed, no need to retake unless you allow it
-        }
-        return true;
-    }
-    
-    // Check if all videos in module are completed
-    List<Video> moduleVideos = videoRepository.findByModuleId(module.getId());
-    if (moduleVideos.isEmpty()) {
-        return false;
-    }
-    
-    int completedVideos = 0;
-    for (Video video : moduleVideos) {
-        Optional<UserVideoProgress> videoProgress = userVideoProgressRepository
-                .findByUserAndVideo(user, video);
-        
-        if (videoProgress.isPresent() && videoProgress.get().isCompleted()) {
-            completedVideos++;
-        }
-    }
-    
-    // All videos must be completed to attempt assessment
-    return completedVideos == moduleVideos.size();
+    return assessmentEligibility.canAttempt(userId, assessmentId);
 }
 
 /**
@@ -942,7 +691,9 @@ public Map<String, Object> getAssessmentWithQuestions(Long userId, Long assessme
         Assessment assessment = assessmentRepository.findById(assessmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid assessmentId"));
         question.setAssessment(assessment);
-        return questionRepository.save(question);
+        Question saved = questionRepository.save(question);
+        answerKeyCache.invalidate(assessmentId);
+        return saved;
     }
 
     public List<Question> getQuestionsByAssessmentId(Long assessmentId) {
@@ -1014,6 +765,7 @@ public String purchaseCourse(Long userId, Long courseId) {
         }
     }
 
+    courseProgressRollup.refresh(userId, courseId);
     return "Purchase successful";
 }
 
@@ -1027,11 +779,11 @@ public List<Course> getCoursesForUser(Long userId) {
     List<Course> courses = getAllCoursesWithModulesAndVideos();
     
     System.out.println("Total courses found: " + courses.size());
+    Set<Long> purchasedIds = new HashSet<>(userCoursePurchaseRepository.findCourseIdsByUserId(userId));
     
     for (Course course : courses) {
         // Check if user purchased the course
-        boolean isPurchased = userCoursePurchaseRepository
-                .existsByUserIdAndCourseId(userId, course.getId());
+        boolean isPurchased = purchasedIds.contains(course.getId());
         course.setPurchased(isPurchased);
         
         // Debug: Check modules
@@ -1056,20 +808,7 @@ public List<Course> getCoursesForUser(Long userId) {
      * Return single course with user-specific transient flags applied.
      */
     public Course getCourseForUser(Long userId, Long courseId) {
-
-        Course course = getCourseByIdWithModulesAndVideos(courseId).orElseThrow();
-
-        boolean purchased = purchaseRepository.existsByUserIdAndCourseId(userId, course.getId());
-        course.setPurchased(purchased);
-
-        // Ensure videos loaded and then apply user progress
-        for (Module m : course.getModules()) {
-            m.setVideos(videoRepository.findByModuleId(m.getId()));
-        }
-
-        applyUserProgressToCourse(course, userId);
-
-        return course;
+        return progressOverlayService.loadCourseForUser(userId, courseId).orElseThrow();
     }
 
 
@@ -1094,107 +833,26 @@ public List<Course> getCoursesForUser(Long userId) {
 
     /**
      * Mark a video completed & unlock next video (if exists). If current is last, unlock module assessment.
+     * The decisions are bit operations on the user's module video state; see {@link ModuleVideoStateService}.
      */
 @Transactional
 public boolean completeVideoAndUnlockNext(Long userId, Long courseId, Long moduleId, Long videoId) {
-    User user = userRepository.findById(userId).orElseThrow();
-    Video current = videoRepository.findById(videoId).orElseThrow();
-
-    // mark current as completed
-    UserVideoProgress currentProgress = userVideoProgressRepository.findByUserAndVideo(user, current)
-        .orElseGet(() -> {
-            UserVideoProgress nv = new UserVideoProgress();
-            nv.setUser(user);
-            nv.setVideo(current);
-            return nv;
-        });
-        
-    currentProgress.setUnlocked(true);
-    currentProgress.setCompleted(true);
-    currentProgress.setCompletedOn(new Date());
-    userVideoProgressRepository.save(currentProgress);
-
-    // Find module and its videos (fetch fresh list)
-    Module module = moduleRepository.findById(moduleId).orElseThrow();
-    List<Video> moduleVideos = videoRepository.findByModuleId(module.getId());
-
-    int idx = -1;
-    for (int i = 0; i < moduleVideos.size(); i++) {
-        if (moduleVideos.get(i).getId().equals(current.getId())) {
-            idx = i;
-            break;
-        }
-    }
+    ModuleVideoStateService.Transition transition = moduleVideoState.completeVideo(userId, moduleId, videoId);
 
-    // 1. Unlock next video if exists
-    if (idx >= 0 && idx + 1 < moduleVideos.size()) {
-        Video next = moduleVideos.get(idx + 1);
-        UserVideoProgress nextProgress = userVideoProgressRepository.findByUserAndVideo(user, next)
-                .orElseGet(() -> {
-                    UserVideoProgress nv = new UserVideoProgress();
-                    nv.setUser(user);
-                    nv.setVideo(next);
-                    return nv;
-                });
-        if (!nextProgress.isUnlocked()) {
-            nextProgress.setUnlocked(true);
-            nextProgress.setUnlockedOn(new Date());
-            userVideoProgressRepository.save(nextProgress);
-        }
-    }
-    
-    // 2. Check if ALL videos in module are completed
-    boolean allVideosCompleted = checkIfAllVideosCompleted(userId, moduleId);
-    
-    // 3. Only unlock assessment if ALL videos are completed
-    if (allVideosCompleted) {
-        unlockAssessmentForModule(userId, moduleId);
-        logger.info("✅ All videos completed in module {}, assessment unlocked", moduleId);
+    // Only unlock assessment if ALL videos are completed
+    if (transition.moduleCompleted()) {
+        unlockAssessmentForModule(userId, transition.moduleId());
+        logger.info("✅ All videos completed in module {}, assessment unlocked", transition.moduleId());
     } else {
         logger.info("ℹ️ Module {}: {}/{} videos completed, assessment remains locked", 
-                   moduleId, getCompletedVideosCount(userId, moduleId), moduleVideos.size());
+                   transition.moduleId(), transition.completedVideos(), transition.totalVideos());
     }
 
+    courseProgressRollup.refresh(userId, transition.courseId() != null ? transition.courseId() : courseId);
+    assessmentEligibility.evictModule(userId, transition.moduleId());
     return true;
 }
 
-/**
- * Check if ALL videos in a module are completed by the user
- */
-private boolean checkIfAllVideosCompleted(Long userId, Long moduleId) {
-    User user = userRepository.findById(userId).orElseThrow();
-    List<Video> moduleVideos = videoRepository.findByModuleId(moduleId);
-    
-    if (moduleVideos.isEmpty()) {
-        return false;
-    }
-    
-    for (Video video : moduleVideos) {
-        Optional<UserVideoProgress> progress = userVideoProgressRepository.findByUserAndVideo(user, video);
-        if (progress.isEmpty() || !progress.get().isCompleted()) {
-            return false; // Found a video that's not completed
-        }
-    }
-    return true; // All videos completed
-}
-
-/**
- * Get count of completed videos in a module
- */
-private int getCompletedVideosCount(Long userId, Long moduleId) {
-    User user = userRepository.findById(userId).orElseThrow();
-    List<Video> moduleVideos = videoRepository.findByModuleId(moduleId);
-    
-    int completedCount = 0;
-    for (Video video : moduleVideos) {
-        Optional<UserVideoProgress> progress = userVideoProgressRepository.findByUserAndVideo(user, video);
-        if (progress.isPresent() && progress.get().isCompleted()) {
-            completedCount++;
-        }
-    }
-    return completedCount;
-}
-
 
     /**
      * Unlock assessment for a module for a user.
@@ -1244,6 +902,7 @@ public boolean unlockAssessmentForModule(Long userId, Long moduleId) {
     mp.setUnlocked(true);
     mp.setUnlockedOn(new Date());
     userModuleProgressRepository.save(mp);
+    assessmentEligibility.evictModule(userId, moduleId);
 
     return true;
 }
@@ -1352,152 +1011,6 @@ public boolean unlockNextModuleForUser(Long userId, Long courseId, Long currentM
 }
 
 
-    /**
-     * Populate transient flags (isLocked/isCompleted/assessmentLocked) on modules & videos
-     * based on user progress repositories so frontend can render correct state.
-     *
-     * Important: this uses existence of progress rows:
-     *  - moduleUnlocked = exists(user,module)
-     *  - assessmentUnlocked = exists(user,assessment)
-     *  - video unlocked/completed = values from UserVideoProgress
-     */
-private void applyUserProgressToCourse(Course course, Long userId) {
-    if (course == null) return;
-
-    // ✅ FIRST: check purchase status
-    boolean isPurchased =
-        userCoursePurchaseRepository.existsByUserIdAndCourseId(userId, course.getId());
-
-    System.out.println("🎯 DEBUG PURCHASE CHECK:");
-    System.out.println("   ├─ User ID: " + userId);
-    System.out.println("   ├─ Course ID: " + course.getId());
-    System.out.println("   ├─ Course Title: " + course.getTitle());
-    System.out.println("✅ Final purchase status: " + isPurchased);
-
-    // ===============================
-    // 🚫 NOT PURCHASED COURSE LOGIC
-    // ===============================
-    if (!isPurchased) {
-        for (Module module : course.getModules()) {
-            boolean isFirstModule = course.getModules().indexOf(module) == 0;
-            module.setLocked(!isFirstModule);
-
-            List<Video> videos = videoRepository.findByModuleId(module.getId());
-            module.getVideos().clear();
-            module.getVideos().addAll(videos);
-
-            for (int i = 0; i < videos.size(); i++) {
-                Video video = videos.get(i);
-
-                // Only FIRST video of FIRST module unlocked
-                if (isFirstModule && i == 0) {
-                    video.setLocked(false);
-                } else {
-                    video.setLocked(true);
-                }
-
-                video.setCompleted(false);
-            }
-        }
-        return; // ⛔ stop here
-    }
-
-    // ===============================
-    // ✅ PURCHASED COURSE LOGIC
-    // ===============================
-
-    Optional<User> userOpt = userRepository.findById(userId);
-    if (userOpt.isEmpty()) {
-        System.out.println("⚠️ WARNING: User not found with ID: " + userId);
-        return;
-    }
-    User user = userOpt.get();
-
-    for (Module module : course.getModules()) {
-// FIX: Check if module is actually unlocked in database
-Optional<UserModuleProgress> moduleProgress = userModuleProgressRepository.findByUserAndModule(user, module);
-boolean moduleUnlocked = moduleProgress.map(UserModuleProgress::isUnlocked).orElse(false);
-
-// First module always unlocked for purchased courses
-if (course.getModules().indexOf(module) == 0) {
-    moduleUnlocked = true;
-}
-
-        module.setLocked(!moduleUnlocked);
-
-        List<Video> videos = videoRepository.findByModuleId(module.getId());
-        module.getVideos().clear();
-        module.getVideos().addAll(videos);
-
-        for (int i = 0; i < videos.size(); i++) {
-            Video video = videos.get(i);
-            Optional<UserVideoProgress> up =
-                userVideoProgressRepository.findByUserAndVideo(user, video);
-
-            if (up.isPresent()) {
-                UserVideoProgress uvp = up.get();
-                video.setLocked(!uvp.isUnlocked());
-                video.setCompleted(uvp.isCompleted());
-            } else {
-                if (moduleUnlocked) {
-                    if (course.getModules().indexOf(module) == 0) {
-                        // First module: first 3 videos unlocked
-                        if (i < 3) {
-                            video.setLocked(false);
-                        } else {
-                            boolean prevCompleted =
-                                checkPreviousVideosCompleted(user, module, i);
-                            video.setLocked(!prevCompleted);
-                        }
-                    } else {
-                        boolean prevModuleCompleted =
-                            checkPreviousModuleCompleted(user, course, module);
-                        video.setLocked(!(prevModuleCompleted && i == 0));
-                    }
-                } else {
-                    video.setLocked(true);
-                }
-                video.setCompleted(false);
-            }
-        }
-    }
-}
-
-
-private boolean checkPreviousVideosCompleted(User user, Module module, int currentVideoIndex) {
-    if (currentVideoIndex == 0) return false; // First video
-    
-    List<Video> videos = videoRepository.findByModuleId(module.getId());
-    
-    // Check if all previous videos are completed
-    for (int i = 0; i < currentVideoIndex; i++) {
-        Video previousVideo = videos.get(i);
-        Optional<UserVideoProgress> progress = userVideoProgressRepository.findByUserAndVideo(user, previousVideo);
-        
-        if (progress.isEmpty() || !progress.get().isCompleted()) {
-            return false; // Previous video not completed
-        }
-    }
-    return true; // All previous videos completed
-}
-
-private boolean checkPreviousModuleCompleted(User user, Course course, Module currentModule) {
-    int currentIndex = course.getModules().indexOf(currentModule);
-    if (currentIndex <= 0) return false; // First module
-    
-    Module previousModule = course.getModules().get(currentIndex - 1);
-    List<Video> previousVideos = videoRepository.findByModuleId(previousModule.getId());
-    
-    // Check if all videos in previous module are completed
-    for (Video video : previousVideos) {
-        Optional<UserVideoProgress> progress = userVideoProgressRepository.findByUserAndVideo(user, video);
-        
-        if (progress.isEmpty() || !progress.get().isCompleted()) {
-            return false; // Video not completed
-        }
-    }
-    return true; // All videos in previous module completed
-}
 
     // private void applyUserProgressToCourse(Course course, Long userId) {
     //     if (course == null) return;
@@ -1570,227 +1083,61 @@ private boolean checkPreviousModuleCompleted(User user, Course course, Module cu
 
 
     public List<Module> getModulesForUser(Long userId, Long courseId) {
-    List<Module> modules = moduleRepository.findByCourseId(courseId);
-
-    Optional<User> userOpt = userRepository.findById(userId);
-    if (userOpt.isEmpty()) return modules;
-    User user = userOpt.get();
-
-    boolean isPurchased = userCoursePurchaseRepository.existsByUserIdAndCourseId(userId, courseId);
-
-    for (int mIndex = 0; mIndex < modules.size(); mIndex++) {
-        Module module = modules.get(mIndex);
-
-        boolean moduleUnlocked = isPurchased &&
-                (mIndex == 0 || checkPreviousModuleCompleted(user, modules, mIndex));
-
-        module.setLocked(!moduleUnlocked);
-
-        List<Video> videos = videoRepository.findByModuleId(module.getId());
-        module.getVideos().clear();
-        module.getVideos().addAll(videos);
-
-        for (int vIndex = 0; vIndex < videos.size(); vIndex++) {
-            Video video = videos.get(vIndex);
-
-            Optional<UserVideoProgress> progress = userVideoProgressRepository.findByUserAndVideo(user, video);
-            if (progress.isPresent()) {
-                video.setLocked(!progress.get().isUnlocked());
-                video.setCompleted(progress.get().isCompleted());
-            } else {
-                if (moduleUnlocked) {
-                    // first module, first 3 videos unlocked
-                    if (mIndex == 0 && vIndex < 3) {
-                        video.setLocked(false);
-                    } else {
-                        // unlock only if all previous videos in module completed
-                        video.setLocked(!checkPreviousVideosCompleted(user, module, vIndex));
-                    }
-                } else {
-                    video.setLocked(true);
-                }
-                video.setCompleted(false);
-            }
-        }
+        return progressOverlayService.loadModulesForUser(userId, courseId);
     }
 
-    return modules;
-}
-
-// Helper for module page
-private boolean checkPreviousModuleCompleted(User user, List<Module> modules, int currentIndex) {
-    if (currentIndex == 0) return true;
-    Module prev = modules.get(currentIndex - 1);
-    List<Video> prevVideos = videoRepository.findByModuleId(prev.getId());
-    for (Video v : prevVideos) {
-        Optional<UserVideoProgress> p = userVideoProgressRepository.findByUserAndVideo(user, v);
-        if (p.isEmpty() || !p.get().isCompleted()) return false;
-    }
-    return true;
-}
-
     public List<Module> getModulesByCourseForUser(Long courseId, Long userId) {
-    List<Module> modules = moduleRepository.findByCourseId(courseId);
-
-    // Load videos for each module
-    for (Module m : modules) {
-        List<Video> videos = videoRepository.findByModuleId(m.getId());
-        m.getVideos().clear();
-        m.getVideos().addAll(videos);
+        return progressOverlayService.loadCourseForUser(userId, courseId)
+                .map(Course::getModules)
+                .orElseThrow();
     }
 
-    // Fetch the course to reuse existing logic
-    Course course = getCourseByIdWithModulesAndVideos(courseId).orElseThrow();
-    applyUserProgressToCourse(course, userId);
-
-    // Now each module in `course.getModules()` has correct locked/unlocked flags
-    return course.getModules();
-}
-
 
 
 
 // In CourseService.java
 /**
- * Calculate detailed progress for a user's course
+ * Calculate detailed progress for a user's course.
+ * Titles and module order come from the catalog snapshot; all per-module counts and flags
+ * come from one grouped query, so the statement count does not grow with the course.
  */
 public Map<String, Object> calculateCourseProgress(Long userId, Long courseId) {
-    System.out.println("🎯 Calculating progress for user " + userId + ", course " + courseId);
-    
-    User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-    
-    Course course = getCourseByIdWithModulesAndVideos(courseId)
-            .orElseThrow(() -> new RuntimeException("Course not found"));
-    
-    int totalVideos = 0;
-    int completedVideos = 0;
-    int totalModules = course.getModules().size();
-    int completedModules = 0;
-    boolean isCourseCompleted = true;
-    
-    List<Map<String, Object>> moduleProgressList = new ArrayList<>();
-    
-    // Calculate progress for each module
-    for (Module module : course.getModules()) {
-        Map<String, Object> moduleProgress = new HashMap<>();
-        moduleProgress.put("moduleId", module.getId());
-        moduleProgress.put("moduleTitle", module.getTitle());
-        
-        // Get all videos in this module
-        List<Video> videos = videoRepository.findByModuleId(module.getId());
-        int moduleTotalVideos = videos.size();
-        int moduleCompletedVideos = 0;
-        
-        // Check video completion
-        for (Video video : videos) {
-            totalVideos++;
-            Optional<UserVideoProgress> videoProgress = userVideoProgressRepository
-                    .findByUserAndVideo(user, video);
-            
-            if (videoProgress.isPresent() && videoProgress.get().isCompleted()) {
-                completedVideos++;
-                moduleCompletedVideos++;
-            }
-        }
-        
-        // Calculate module video completion percentage
-        double moduleVideoPercent = moduleTotalVideos > 0 ? 
-                ((double) moduleCompletedVideos / moduleTotalVideos) * 100 : 0;
-        
-        moduleProgress.put("totalVideos", moduleTotalVideos);
-        moduleProgress.put("completedVideos", moduleCompletedVideos);
-        moduleProgress.put("videoProgress", Math.round(moduleVideoPercent));
-        
-        // Check if module is completed (all videos + assessment if exists)
-        boolean moduleCompleted = moduleCompletedVideos == moduleTotalVideos;
-        
-        // Check assessment completion if module has assessment
-        if (moduleCompleted) {
-            List<Assessment> assessments = assessmentRepository.findByModuleId(module.getId());
-            if (!assessments.isEmpty()) {
-                for (Assessment assessment : assessments) {
-                    Optional<UserAssessmentProgress> assessmentProgress = userAssessmentProgressRepository
-                            .findByUserAndAssessment(user, assessment);
-                    
-                    boolean assessmentPassed = assessmentProgress.isPresent() && 
-                                              assessmentProgress.get().isPassed();
-                    moduleCompleted = moduleCompleted && assessmentPassed;
-                    
-                    moduleProgress.put("assessmentPassed", assessmentPassed);
-                    moduleProgress.put("assessmentScore", assessmentProgress
-                            .map(ap -> ap.getPercentage())
-                            .orElse(0.0));
-                }
-            }
-        }
-        
-        // Check module progress in user_module_progress
-        Optional<UserModuleProgress> userModuleProgress = userModuleProgressRepository
-                .findByUserAndModule(user, module);
-        
-        boolean moduleMarkedCompleted = userModuleProgress
-                .map(UserModuleProgress::isCompleted)
-                .orElse(false);
-        
-        moduleProgress.put("completed", moduleCompleted || moduleMarkedCompleted);
-        moduleProgress.put("unlocked", userModuleProgress
-                .map(UserModuleProgress::isUnlocked)
-                .orElse(false));
-        
-        if (moduleCompleted || moduleMarkedCompleted) {
-            completedModules++;
-        } else {
-            isCourseCompleted = false;
-        }
-        
-        moduleProgressList.add(moduleProgress);
+    if (!userRepository.existsById(userId)) {
+        throw new RuntimeException("User not found");
     }
     
-    // Calculate overall course progress
-    double overallProgress = totalVideos > 0 ? 
-            ((double) completedVideos / totalVideos) * 100 : 0.0;
+    CatalogSnapshot.CourseView course = catalogSnapshot.findCourseView(courseId)
+            .orElseThrow(() -> new RuntimeException("Course not found"));
     
-    // Check if course is marked as completed in database
+    Map<Long, ModuleProgressRow> moduleRows = loadModuleProgress(userId, List.of(courseId));
     boolean coursePurchased = purchaseRepository.existsByUserIdAndCourseId(userId, courseId);
     
-    Map<String, Object> result = new HashMap<>();
-    result.put("courseId", courseId);
-    result.put("courseTitle", course.getTitle());
-    result.put("courseDescription", course.getDescription());
-    result.put("purchased", coursePurchased);
-    result.put("totalModules", totalModules);
-    result.put("completedModules", completedModules);
-    result.put("totalVideos", totalVideos);
-    result.put("completedVideos", completedVideos);
-    result.put("progressPercent", Math.round(overallProgress));
-    result.put("isCompleted", isCourseCompleted);
-    result.put("moduleProgress", moduleProgressList);
+    Map<String, Object> result = buildCourseProgress(course, moduleRows, coursePurchased);
     
-    System.out.println("📊 Progress Calculation Result:");
-    System.out.println("   ├─ Total Videos: " + totalVideos);
-    System.out.println("   ├─ Completed Videos: " + completedVideos);
-    System.out.println("   ├─ Progress: " + Math.round(overallProgress) + "%");
-    System.out.println("   ├─ Total Modules: " + totalModules);
-    System.out.println("   ├─ Completed Modules: " + completedModules);
-    System.out.println("   └─ Course Completed: " + isCourseCompleted);
+    logger.debug("📊 Course {} progress for user {}: {}/{} videos ({}%), {}/{} modules, completed={}",
+            courseId, userId, result.get("completedVideos"), result.get("totalVideos"),
+            result.get("progressPercent"), result.get("completedModules"), result.get("totalModules"),
+            result.get("isCompleted"));
     
     return result;
 }
 
 /**
- * Get overall progress for a user across all courses
+ * Get overall progress for a user across all courses.
+ * Module progress for every purchased course is loaded with a single grouped query.
  */
 public Map<String, Object> getUserOverallProgress(Long userId) {
-    System.out.println("🎯 Calculating overall progress for user " + userId);
+    if (!userRepository.existsById(userId)) {
+        throw new RuntimeException("User not found");
+    }
     
-    User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+    // Purchased courses, the same set the dashboard and course stats read from the rollup
+    List<Long> courseIds = purchaseRepository.findCourseIdsByUserId(userId).stream()
+            .distinct().sorted().toList();
     
-    // Get all purchased courses
-    List<Course> purchasedCourses = courseRepository.findBySubscribedUsers_Id(userId);
+    Map<Long, ModuleProgressRow> moduleRows = loadModuleProgress(userId, courseIds);
     
-    int totalCourses = purchasedCourses.size();
+    int totalCourses = courseIds.size();
     int completedCourses = 0;
     int totalVideos = 0;
     int completedVideos = 0;
@@ -1799,8 +1146,10 @@ public Map<String, Object> getUserOverallProgress(Long userId) {
     
     List<Map<String, Object>> courseProgressList = new ArrayList<>();
     
-    for (Course course : purchasedCourses) {
-        Map<String, Object> courseProgress = calculateCourseProgress(userId, course.getId());
+    for (Long courseId : courseIds) {
+        CatalogSnapshot.CourseView course = catalogSnapshot.findCourseView(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
+        Map<String, Object> courseProgress = buildCourseProgress(course, moduleRows, true);
         courseProgressList.add(courseProgress);
         
         totalVideos += (int) courseProgress.get("totalVideos");
@@ -1837,88 +1186,139 @@ public Map<String, Object> getUserOverallProgress(Long userId) {
     result.put("overallCourseProgress", Math.round(overallCourseProgress));
     result.put("courseProgress", courseProgressList);
     
-    System.out.println("📊 Overall Progress Summary:");
-    System.out.println("   ├─ Total Courses: " + totalCourses);
-    System.out.println("   ├─ Completed Courses: " + completedCourses);
-    System.out.println("   ├─ Total Videos: " + totalVideos);
-    System.out.println("   ├─ Completed Videos: " + completedVideos);
-    System.out.println("   ├─ Video Progress: " + Math.round(overallVideoProgress) + "%");
-    System.out.println("   └─ Course Progress: " + Math.round(overallCourseProgress) + "%");
+    logger.debug("📊 Overall progress for user {}: {}/{} courses, {}/{} videos ({}%)",
+            userId, completedCourses, totalCourses, completedVideos, totalVideos, Math.round(overallVideoProgress));
     
     return result;
 }
 
-public List<Map<String, Object>> getUserCourseStats(Long userId) {
-    List<Map<String, Object>> courseStats = new ArrayList<>();
-    
-    // Get user's enrolled courses
-    List<Course> enrolledCourses = courseRepository.findBySubscribedUsers_Id(userId);
-    
-    // Get user entity
-    Optional<User> userOpt = userRepository.findById(userId);
-    if (userOpt.isEmpty()) {
-        return courseStats;
+// Per-module counts and flags for one user, keyed by module id
+private Map<Long, ModuleProgressRow> loadModuleProgress(Long userId, Collection<Long> courseIds) {
+    if (courseIds.isEmpty()) {
+        return Map.of();
     }
-    User user = userOpt.get();
+    Map<Long, ModuleProgressRow> rows = new HashMap<>();
+    for (Object[] row : progressAggregationRepository.findModuleProgress(userId, courseIds)) {
+        ModuleProgressRow progress = ModuleProgressRow.of(row);
+        rows.put(progress.moduleId(), progress);
+    }
+    return rows;
+}
+
+private Map<String, Object> buildCourseProgress(CatalogSnapshot.CourseView course,
+                                                Map<Long, ModuleProgressRow> moduleRows,
+                                                boolean coursePurchased) {
+    int totalVideos = 0;
+    int completedVideos = 0;
+    int totalModules = course.modules().size();
+    int completedModules = 0;
+    boolean isCourseCompleted = true;
     
-    for (Course course : enrolledCourses) {
-        Map<String, Object> stat = new HashMap<>();
+    List<Map<String, Object>> moduleProgressList = new ArrayList<>();
+    
+    for (CatalogSnapshot.ModuleView module : course.modules()) {
+        ModuleProgressRow row = moduleRows.getOrDefault(module.id(), ModuleProgressRow.empty(module.id()));
         
-        // Basic course info
-        stat.put("courseId", course.getId());
-        stat.put("courseTitle", course.getTitle());
+        Map<String, Object> moduleProgress = new HashMap<>();
+        moduleProgress.put("moduleId", module.id());
+        moduleProgress.put("moduleTitle", module.title());
         
-        // Get total videos in course
-        Long totalVideos = videoRepository.countByCourseId(course.getId());
+        totalVideos += row.totalVideos();
+        completedVideos += row.completedVideos();
         
-        // Get completed videos from UserVideoProgress
-        int completedVideos = 0;
+        double moduleVideoPercent = row.totalVideos() > 0 ? 
+                ((double) row.completedVideos() / row.totalVideos()) * 100 : 0;
         
-        // Get all modules in course
-        List<Module> modules = moduleRepository.findByCourseId(course.getId());
+        moduleProgress.put("totalVideos", row.totalVideos());
+        moduleProgress.put("completedVideos", row.completedVideos());
+        moduleProgress.put("videoProgress", Math.round(moduleVideoPercent));
         
-        for (Module module : modules) {
-            // Get all videos in module
-            List<Video> videos = videoRepository.findByModuleId(module.getId());
-            
-            for (Video video : videos) {
-                Optional<UserVideoProgress> videoProgress = userVideoProgressRepository
-                    .findByUserAndVideo(user, video);
-                
-                if (videoProgress.isPresent() && videoProgress.get().isCompleted()) {
-                    completedVideos++;
-                }
-            }
+        // Module is completed when all videos are, and every assessment is passed
+        boolean moduleCompleted = row.completedVideos() == row.totalVideos();
+        if (moduleCompleted && row.assessmentCount() > 0) {
+            moduleCompleted = row.allAssessmentsPassed();
+            moduleProgress.put("assessmentPassed", row.lastAssessmentPassed());
+            moduleProgress.put("assessmentScore", row.lastAssessmentScore());
         }
         
-        // Get total and completed modules
-        Long totalModules = moduleRepository.countByCourseId(course.getId());
+        moduleProgress.put("completed", moduleCompleted || row.markedCompleted());
+        moduleProgress.put("unlocked", row.unlocked());
         
-        int completedModules = 0;
-        for (Module module : modules) {
-            Optional<UserModuleProgress> moduleProgress = userModuleProgressRepository
-                .findByUserAndModule(user, module);
-            
-            if (moduleProgress.isPresent() && moduleProgress.get().isCompleted()) {
-                completedModules++;
-            }
+        if (moduleCompleted || row.markedCompleted()) {
+            completedModules++;
+        } else {
+            isCourseCompleted = false;
         }
         
-        // Calculate progress percentage
-        int progressPercent = 0;
-        if (totalVideos > 0) {
-            progressPercent = (int) ((completedVideos * 100) / totalVideos);
-        }
+        moduleProgressList.add(moduleProgress);
+    }
+    
+    double overallProgress = totalVideos > 0 ? 
+            ((double) completedVideos / totalVideos) * 100 : 0.0;
+    
+    Map<String, Object> result = new HashMap<>();
+    result.put("courseId", course.id());
+    result.put("courseTitle", course.title());
+    result.put("courseDescription", course.description());
+    result.put("purchased", coursePurchased);
+    result.put("totalModules", totalModules);
+    result.put("completedModules", completedModules);
+    result.put("totalVideos", totalVideos);
+    result.put("completedVideos", completedVideos);
+    result.put("progressPercent", Math.round(overallProgress));
+    result.put("isCompleted", isCourseCompleted);
+    result.put("moduleProgress", moduleProgressList);
+    return result;
+}
+
+/** One row of {@link ProgressAggregationRepository#findModuleProgress}. */
+private record ModuleProgressRow(Long moduleId, int totalVideos, int completedVideos,
+                                 boolean markedCompleted, boolean unlocked, int assessmentCount,
+                                 boolean allAssessmentsPassed, boolean lastAssessmentPassed,
+                                 double lastAssessmentScore) {
+
+    static ModuleProgressRow of(Object[] row) {
+        return new ModuleProgressRow(
+                ((Number) row[1]).longValue(),
+                ((Number) row[2]).intValue(),
+                ((Number) row[3]).intValue(),
+                Boolean.TRUE.equals(row[4]),
+                Boolean.TRUE.equals(row[5]),
+                row[6] == null ? 0 : ((Number) row[6]).intValue(),
+                Boolean.TRUE.equals(row[7]),
+                Boolean.TRUE.equals(row[8]),
+                row[9] == null ? 0.0 : ((Number) row[9]).doubleValue());
+    }
+
+    // A module created after the query ran: no videos, nothing done
+    static ModuleProgressRow empty(Long moduleId) {
+        return new ModuleProgressRow(moduleId, 0, 0, false, false, 0, false, false, 0.0);
+    }
+}
+
+public List<Map<String, Object>> getUserCourseStats(Long userId) {
+    List<Map<String, Object>> courseStats = new ArrayList<>();
+    
+    // One indexed read: a rollup row per purchased course
+    for (UserCourseProgress rollup : courseProgressRollup.getForUser(userId)) {
+        Map<String, Object> stat = new HashMap<>();
+        
+        // Basic course info
+        stat.put("courseId", rollup.getCourseId());
+        stat.put("courseTitle", catalogSnapshot.findCourseView(rollup.getCourseId())
+                .map(CatalogSnapshot.CourseView::title)
+                .orElse(null));
         
-        boolean isCompleted = progressPercent >= 100;
+        long totalVideos = rollup.getTotalVideos();
+        long totalModules = courseAggregates.get(rollup.getCourseId()).moduleCount();
+        int progressPercent = (int) Math.floor(rollup.getProgressPercent());
         
-        // Add to stats
         stat.put("totalVideos", totalVideos);
-        stat.put("completedVideos", completedVideos);
+        stat.put("completedVideos", rollup.getCompletedVideos());
         stat.put("totalModules", totalModules);
-        stat.put("completedModules", completedModules);
+        stat.put("completedModules", rollup.getCompletedModules());
         stat.put("progressPercent", progressPercent);
-        stat.put("isCompleted", isCompleted);
+        stat.put("isCompleted", progressPercent >= 100);
         
         courseStats.add(stat);
     }
@@ -32,9 +32,14 @@ public class CustomUserDetailsService implements UserDetailsService {
     }
     
     private Collection<? extends GrantedAuthority> getAuthorities(User user) {
+        return authoritiesForRole(user.getRole());
+    }
+    
+    // Shared with the stateless JWT path, which takes the role from the token's claims
+    public static Collection<? extends GrantedAuthority> authoritiesForRole(String userRole) {
         // If user has no role, default to USER
-        String role = (user.getRole() != null && !user.getRole().isEmpty()) 
-            ? user.getRole() 
+        String role = (userRole != null && !userRole.isEmpty()) 
+            ? userRole 
             : "USER";
         
         // Ensure role has ROLE_ prefix for Spring Security
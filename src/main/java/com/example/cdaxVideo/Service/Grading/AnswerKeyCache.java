@@ -0,0 +1,86 @@
+package com.example.cdaxVideo.Service.Grading;
+
+import com.example.cdaxVideo.Repository.QuestionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answer keys per assessment, loaded with one projection query on first use and kept until
+ * the assessment's questions change. Grading against a cached key never reads question rows.
+ */
+@Service
+public class AnswerKeyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerKeyCache.class);
+
+    private final QuestionRepository questionRepository;
+    private final Map<Long, AnswerKey> keys = new ConcurrentHashMap<>();
+
+    public AnswerKeyCache(QuestionRepository questionRepository) {
+        this.questionRepository = questionRepository;
+    }
+
+    public AnswerKey get(Long assessmentId) {
+        // A removal for the same key waits for a running load, so a key loaded before a
+        // question write never survives that write's invalidation
+        return keys.computeIfAbsent(assessmentId, this::load);
+    }
+
+    /** Drops the key once the current transaction (if any) commits. */
+    public void invalidate(Long assessmentId) {
+        if (assessmentId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    keys.remove(assessmentId);
+                }
+            });
+        } else {
+            keys.remove(assessmentId);
+        }
+    }
+
+    private AnswerKey load(Long assessmentId) {
+        List<Object[]> rows = questionRepository.findAnswerKeyByAssessmentId(assessmentId);
+        long[] questionIds = new long[rows.size()];
+        String[] answers = new String[rows.size()];
+        int[] marks = new int[rows.size()];
+        int totalMarks = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            questionIds[i] = (Long) row[0];
+            answers[i] = row[1] != null ? ((String) row[1]).strip() : null;
+            marks[i] = ((Number) row[2]).intValue();
+            totalMarks += marks[i];
+        }
+        logger.debug("🔑 Answer key loaded for assessment {}: {} questions", assessmentId, rows.size());
+        return new AnswerKey(assessmentId, questionIds, answers, marks, totalMarks);
+    }
+
+    /**
+     * Parallel arrays ordered by question id. Answers are stripped; a null answer matches nothing.
+     * The arrays are never modified after loading.
+     */
+    public record AnswerKey(Long assessmentId, long[] questionIds, String[] correctAnswers, int[] marks,
+                            int totalMarks) {
+
+        public int size() {
+            return questionIds.length;
+        }
+
+        public boolean isCorrect(int index, String answer) {
+            String correct = correctAnswers[index];
+            return correct != null && answer != null && correct.equalsIgnoreCase(answer.strip());
+        }
+    }
+}
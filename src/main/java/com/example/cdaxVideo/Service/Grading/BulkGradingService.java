@@ -0,0 +1,251 @@
+package com.example.cdaxVideo.Service.Grading;
+
+import com.example.cdaxVideo.DTO.BulkAssessmentSubmitRequestDTO.Submission;
+import com.example.cdaxVideo.Service.Catalog.CatalogSnapshot;
+import com.example.cdaxVideo.Service.CourseService;
+import com.example.cdaxVideo.Service.Progress.AssessmentEligibilityService;
+import com.example.cdaxVideo.Service.Progress.CourseProgressRollupService;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Grades many (user, assessment, answers) submissions at once.
+ *
+ * Submissions are handled in chunks of {@code grading.bulk.chunk-size}. Each chunk is graded
+ * in parallel on a pool of {@code grading.bulk.threads} against cached answer keys, then its
+ * {@code user_assessment_progress} rows are written with one JDBC batch upsert in a single
+ * transaction. Only submissions that passed go through module completion and
+ * {@code unlockNextModuleAfterPassing}, once per (user, module); every touched (user, course)
+ * rollup is refreshed once. Results are handed to the caller chunk by chunk, in input order.
+ */
+@Service
+public class BulkGradingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkGradingService.class);
+
+    // Same bookkeeping as CourseService.submitAssessment; rows for unknown users or
+    // assessments are skipped by the SELECT and reported as failed
+    private static final String UPSERT_SQL =
+            "INSERT INTO user_assessment_progress (user_id, assessment_id, attempts, passed, passed_on, " +
+            "unlocked, unlocked_on, submitted_on, obtained_marks, total_marks, percentage) " +
+            "SELECT u.id, a.id, 1, ?, CASE WHEN ? THEN now() END, true, now(), now(), ?, ?, ? " +
+            "FROM users u, assessment a WHERE u.id = ? AND a.id = ? " +
+            "ON CONFLICT (user_id, assessment_id) DO UPDATE SET " +
+            "attempts = COALESCE(user_assessment_progress.attempts, 0) + 1, " +
+            "passed = EXCLUDED.passed, " +
+            "passed_on = CASE WHEN EXCLUDED.passed THEN COALESCE(user_assessment_progress.passed_on, now()) " +
+            "                 ELSE user_assessment_progress.passed_on END, " +
+            "submitted_on = now(), " +
+            "obtained_marks = EXCLUDED.obtained_marks, " +
+            "total_marks = EXCLUDED.total_marks, " +
+            "percentage = EXCLUDED.percentage";
+
+    private final GradingEngine gradingEngine;
+    private final CatalogSnapshot catalogSnapshot;
+    private final CourseService courseService;
+    private final CourseProgressRollupService courseProgressRollup;
+    private final AssessmentEligibilityService assessmentEligibility;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService pool;
+    private final int chunkSize;
+    private final int maxSubmissions;
+
+    public BulkGradingService(GradingEngine gradingEngine,
+                              CatalogSnapshot catalogSnapshot,
+                              CourseService courseService,
+                              CourseProgressRollupService courseProgressRollup,
+                              AssessmentEligibilityService assessmentEligibility,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${grading.bulk.threads:0}") int threads,
+                              @Value("${grading.bulk.chunk-size:500}") int chunkSize,
+                              @Value("${grading.bulk.max-submissions:10000}") int maxSubmissions) {
+        this.gradingEngine = gradingEngine;
+        this.catalogSnapshot = catalogSnapshot;
+        this.courseService = courseService;
+        this.courseProgressRollup = courseProgressRollup;
+        this.assessmentEligibility = assessmentEligibility;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxSubmissions = maxSubmissions;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread thread = new Thread(r, "bulk-grading-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Outcome of one submission; {@code index} is its position in the request. A successful
+     * result still carries {@code error} when its grade was recorded but module completion failed.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record SubmissionResult(int index, Long userId, Long assessmentId, boolean success,
+                                   Boolean passed, Integer obtainedMarks, Integer totalMarks,
+                                   Double percentage, Boolean nextModuleUnlocked, String error) {
+
+        static SubmissionResult failed(int index, Submission s, String error) {
+            return new SubmissionResult(index, s != null ? s.getUserId() : null,
+                    s != null ? s.getAssessmentId() : null, false,
+                    null, null, null, null, null, error);
+        }
+    }
+
+    public int getMaxSubmissions() {
+        return maxSubmissions;
+    }
+
+    /** Grades and records all submissions, passing each chunk's results to {@code sink} once written. */
+    public void gradeAll(List<Submission> submissions, Consumer<List<SubmissionResult>> sink) {
+        long started = System.currentTimeMillis();
+        int passed = 0;
+        for (int from = 0; from < submissions.size(); from += chunkSize) {
+            List<SubmissionResult> results = gradeChunk(submissions, from, Math.min(from + chunkSize, submissions.size()));
+            for (SubmissionResult result : results) {
+                if (Boolean.TRUE.equals(result.passed())) passed++;
+            }
+            sink.accept(results);
+        }
+        logger.info("📝 Bulk graded {} submissions ({} passed) in {} ms",
+                   submissions.size(), passed, System.currentTimeMillis() - started);
+    }
+
+    private List<SubmissionResult> gradeChunk(List<Submission> submissions, int from, int to) {
+        SubmissionResult[] results = new SubmissionResult[to - from];
+        GradingResult[] gradings = new GradingResult[to - from];
+
+        // 1. Grade in parallel; answer keys are shared and read-only
+        List<Future<GradingResult>> futures = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Submission s = submissions.get(i);
+            String error = validate(s);
+            if (error != null) {
+                results[i - from] = SubmissionResult.failed(i, s, error);
+                futures.add(null);
+                continue;
+            }
+            Callable<GradingResult> task = () -> gradingEngine.grade(s.getAssessmentId(),
+                    s.getAnswers() != null ? s.getAnswers() : Map.of());
+            futures.add(pool.submit(task));
+        }
+        for (int k = 0; k < futures.size(); k++) {
+            Future<GradingResult> future = futures.get(k);
+            if (future == null) continue;
+            try {
+                gradings[k] = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Bulk grading interrupted", e);
+            } catch (ExecutionException e) {
+                results[k] = SubmissionResult.failed(from + k, submissions.get(from + k),
+                        "Grading failed: " + e.getCause().getMessage());
+            }
+        }
+
+        // 2. One batch upsert for the chunk
+        List<Integer> graded = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        for (int k = 0; k < gradings.length; k++) {
+            GradingResult g = gradings[k];
+            if (g == null) continue;
+            Submission s = submissions.get(from + k);
+            graded.add(k);
+            batch.add(new Object[] { g.passed(), g.passed(), g.obtainedMarks(), g.totalMarks(), g.percentage(),
+                    s.getUserId(), s.getAssessmentId() });
+        }
+        int[] counts = batch.isEmpty() ? new int[0]
+                : transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, batch));
+
+        // 3. Module completion and unlocks for passers only, once per (user, module)
+        Set<List<Long>> unlockedModules = new HashSet<>();
+        Map<List<Long>, Boolean> unlockOutcome = new HashMap<>();
+        Map<List<Long>, String> unlockError = new HashMap<>();
+        Set<List<Long>> touchedCourses = new LinkedHashSet<>();
+        for (int j = 0; j < graded.size(); j++) {
+            int k = graded.get(j);
+            Submission s = submissions.get(from + k);
+            GradingResult g = gradings[k];
+            if (counts[j] == 0) {
+                results[k] = SubmissionResult.failed(from + k, s, "User or assessment not found");
+                continue;
+            }
+            Long moduleId = catalogSnapshot.findAssessment(s.getAssessmentId())
+                    .map(CatalogSnapshot.AssessmentView::moduleId).orElse(null);
+            Long courseId = moduleId == null ? null : catalogSnapshot.findModule(moduleId)
+                    .map(CatalogSnapshot.ModuleView::courseId).orElse(null);
+            if (courseId != null) {
+                touchedCourses.add(List.of(s.getUserId(), courseId));
+            }
+            // The upsert has committed, so this evicts at once
+            assessmentEligibility.evictModule(s.getUserId(), moduleId);
+
+            boolean nextModuleUnlocked = false;
+            String error = null;
+            if (g.passed() && courseId != null) {
+                List<Long> key = List.of(s.getUserId(), moduleId);
+                if (unlockedModules.add(key)) {
+                    // The grade is already committed: a failure here is reported with it, not thrown
+                    try {
+                        courseService.completeModuleAfterPass(s.getUserId(), moduleId);
+                        unlockOutcome.put(key, courseService.unlockNextModuleAfterPassing(s.getUserId(), courseId, moduleId));
+                    } catch (RuntimeException e) {
+                        logger.error("❌ Module completion failed for user {} module {}: {}",
+                                s.getUserId(), moduleId, e.getMessage(), e);
+                        unlockError.put(key, "Graded, but module completion failed: " + e.getMessage());
+                    }
+                }
+                nextModuleUnlocked = unlockOutcome.getOrDefault(key, false);
+                error = unlockError.get(key);
+            }
+            results[k] = new SubmissionResult(from + k, s.getUserId(), s.getAssessmentId(), true,
+                    g.passed(), g.obtainedMarks(), g.totalMarks(), g.percentage(), nextModuleUnlocked, error);
+        }
+
+        for (List<Long> userCourse : touchedCourses) {
+            try {
+                courseProgressRollup.refresh(userCourse.get(0), userCourse.get(1));
+            } catch (RuntimeException e) {
+                // The reconciler rebuilds a stale rollup; the grades still go out
+                logger.error("❌ Progress rollup refresh failed for user {} course {}: {}",
+                        userCourse.get(0), userCourse.get(1), e.getMessage(), e);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private String validate(Submission s) {
+        if (s == null || s.getUserId() == null || s.getAssessmentId() == null) {
+            return "userId and assessmentId are required";
+        }
+        if (catalogSnapshot.findAssessment(s.getAssessmentId()).isEmpty()) {
+            return "Assessment not found";
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.cdaxVideo.Service.Grading;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Grades answer sheets against cached answer keys; pure CPU once the key is loaded.
+ */
+@Service
+@RequiredArgsConstructor
+public class GradingEngine {
+
+    public static final double PASS_PERCENTAGE = 70.0;
+
+    private final AnswerKeyCache answerKeyCache;
+
+    /** @param answers answer per question id; unknown ids are ignored, missing ones are wrong */
+    public GradingResult grade(Long assessmentId, Map<Long, String> answers) {
+        AnswerKeyCache.AnswerKey key = answerKeyCache.get(assessmentId);
+        int size = key.size();
+        String[] given = new String[size];
+        BitSet correct = new BitSet(size);
+        int obtained = 0;
+        for (int i = 0; i < size; i++) {
+            String answer = answers.get(key.questionIds()[i]);
+            given[i] = answer;
+            if (key.isCorrect(i, answer)) {
+                correct.set(i);
+                obtained += key.marks()[i];
+            }
+        }
+        double percentage = key.totalMarks() > 0 ? (double) obtained / key.totalMarks() * 100 : 0.0;
+        return new GradingResult(key, given, correct, obtained, percentage, percentage >= PASS_PERCENTAGE);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.cdaxVideo.Service.Grading;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Score of one submission against an {@link AnswerKeyCache.AnswerKey}. {@code answers[i]} and
+ * bit {@code i} of {@code correct} belong to the key's i-th question; per-question results
+ * are only materialized when asked for.
+ */
+public record GradingResult(AnswerKeyCache.AnswerKey key, String[] answers, BitSet correct,
+                            int obtainedMarks, double percentage, boolean passed) {
+
+    public Long assessmentId() {
+        return key.assessmentId();
+    }
+
+    public int totalMarks() {
+        return key.totalMarks();
+    }
+
+    public List<QuestionResult> questionResults() {
+        List<QuestionResult> results = new ArrayList<>(key.size());
+        for (int i = 0; i < key.size(); i++) {
+            results.add(new QuestionResult(key.questionIds()[i], answers[i], key.correctAnswers()[i],
+                    correct.get(i), key.marks()[i]));
+        }
+        return results;
+    }
+
+    public record QuestionResult(Long questionId, String userAnswer, String correctAnswer,
+                                 boolean correct, int marks) {
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.cdaxVideo.Service.Progress;
+
+import com.example.cdaxVideo.Repository.UserAssessmentProgressRepository;
+import com.example.cdaxVideo.Service.Catalog.CatalogChangedEvent;
+import com.example.cdaxVideo.Service.Catalog.CatalogSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Whether a user may attempt an assessment, and the progress shown next to it.
+ *
+ * A (user, assessment) entry is loaded with one statement: the module's completed video count
+ * plus the user's assessment progress row; the module's video count comes from the catalog
+ * snapshot. Entries are kept until the user's next video completion or submission in that
+ * module commits, so repeated status polls do not touch the database. Any catalog change
+ * drops all entries. The map holds at most {@code assessment.eligibility.max-entries} entries
+ * and is emptied when full.
+ */
+@Service
+public class AssessmentEligibilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssessmentEligibilityService.class);
+
+    private final UserAssessmentProgressRepository assessmentProgressRepository;
+    private final CatalogSnapshot catalogSnapshot;
+    private final int maxEntries;
+    private final Map<Key, Eligibility> entries = new ConcurrentHashMap<>();
+
+    public AssessmentEligibilityService(UserAssessmentProgressRepository assessmentProgressRepository,
+                                        CatalogSnapshot catalogSnapshot,
+                                        @Value("${assessment.eligibility.max-entries:100000}") int maxEntries) {
+        this.assessmentProgressRepository = assessmentProgressRepository;
+        this.catalogSnapshot = catalogSnapshot;
+        this.maxEntries = maxEntries;
+    }
+
+    private record Key(Long userId, Long assessmentId) {
+    }
+
+    /** Cached state of one user's assessment. Progress fields are null until the user has a progress row. */
+    public record Eligibility(Long assessmentId, Long moduleId, int completedVideos, int totalVideos,
+                              boolean unlocked, boolean passed, int attempts, Integer obtainedMarks,
+                              Integer totalMarksAttempted, Double percentage, Date lastSubmitted,
+                              Date passedOn, Date unlockedOn, boolean hasProgress) {
+
+        /** Unlocked and not yet passed, or every video of a non-empty module completed. */
+        public boolean canAttempt() {
+            if (unlocked) {
+                return !passed;
+            }
+            return totalVideos > 0 && completedVideos == totalVideos;
+        }
+
+        public boolean canRetake() {
+            return unlocked && !passed;
+        }
+    }
+
+    public Eligibility get(Long userId, Long assessmentId) {
+        CatalogSnapshot.AssessmentView assessment = catalogSnapshot.findAssessment(assessmentId)
+                .orElseThrow(() -> new RuntimeException("Assessment not found"));
+        Key key = new Key(userId, assessmentId);
+        Eligibility cached = entries.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (entries.size() >= maxEntries) {
+            entries.clear(); // a dropped entry only costs one extra query
+        }
+        // A removal for the same key waits for a running load, so an entry loaded before a
+        // completion never survives that completion's eviction
+        return entries.computeIfAbsent(key, k -> load(userId, assessment));
+    }
+
+    public boolean canAttempt(Long userId, Long assessmentId) {
+        return get(userId, assessmentId).canAttempt();
+    }
+
+    /** Drops the user's entries for every assessment of the module once the current transaction commits. */
+    public void evictModule(Long userId, Long moduleId) {
+        if (userId == null || moduleId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeModule(userId, moduleId);
+                }
+            });
+        } else {
+            removeModule(userId, moduleId);
+        }
+    }
+
+    // Video counts and module membership may have moved
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        entries.clear();
+    }
+
+    private void removeModule(Long userId, Long moduleId) {
+        catalogSnapshot.findModule(moduleId).ifPresent(module -> {
+            for (CatalogSnapshot.AssessmentView assessment : module.assessments()) {
+                entries.remove(new Key(userId, assessment.id()));
+            }
+        });
+    }
+
+    private Eligibility load(Long userId, CatalogSnapshot.AssessmentView assessment) {
+        Long moduleId = assessment.moduleId();
+        int totalVideos = catalogSnapshot.findModule(moduleId)
+                .map(module -> module.videos().size())
+                .orElse(0);
+        List<Object[]> rows = assessmentProgressRepository.findEligibilityRow(userId, moduleId, assessment.id());
+        Object[] row = rows.get(0);
+        if (!Boolean.TRUE.equals(row[0])) {
+            // Thrown out of computeIfAbsent, so nothing is cached
+            throw new RuntimeException("User not found");
+        }
+        int completedVideos = ((Number) row[1]).intValue();
+        boolean hasProgress = row[2] != null;
+        Eligibility eligibility = new Eligibility(assessment.id(), moduleId, completedVideos, totalVideos,
+                Boolean.TRUE.equals(row[2]), Boolean.TRUE.equals(row[3]),
+                row[4] != null ? ((Number) row[4]).intValue() : 0,
+                row[5] != null ? ((Number) row[5]).intValue() : null,
+                row[6] != null ? ((Number) row[6]).intValue() : null,
+                row[7] != null ? ((Number) row[7]).doubleValue() : null,
+                toDate(row[8]), toDate(row[9]), toDate(row[10]), hasProgress);
+        logger.debug("🎯 Eligibility loaded for user {} assessment {}: {}/{} videos, unlocked={}",
+                userId, assessment.id(), completedVideos, totalVideos, eligibility.unlocked());
+        return eligibility;
+    }
+
+    // Native timestamps come back as java.sql or java.time types depending on the driver settings
+    private static Date toDate(Object value) {
+        if (value == null || value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof LocalDateTime local) {
+            return Timestamp.valueOf(local);
+        }
+        if (value instanceof OffsetDateTime offset) {
+            return Date.from(offset.toInstant());
+        }
+        if (value instanceof Instant instant) {
+            return Date.from(instant);
+        }
+        throw new IllegalStateException("Unexpected timestamp type " + value.getClass().getName());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.cdaxVideo.Service.Progress;
+
+import com.example.cdaxVideo.Entity.UserCourseProgress;
+import com.example.cdaxVideo.Repository.UserCourseProgressRepository;
+import com.example.cdaxVideo.Service.Catalog.CatalogChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keeps {@code user_course_progress} in step with the progress tables.
+ *
+ * The video completion, assessment submit and purchase paths call {@link #refresh} inside
+ * their own transaction: one upsert recomputes the (user, course) row from the indexed
+ * progress rows of that course. A change to a course's modules or videos refreshes all of
+ * its purchasers. Heartbeats only move {@code last_activity_at} on the next refresh.
+ *
+ * The reconciler walks all purchasing users in pages of {@code progress.rollup.reconcile-batch}
+ * on {@code progress.rollup.reconcile-cron}, recomputes their rows in one statement per page
+ * and counts every row it had to insert or correct in {@code progress.rollup.corrected}.
+ * On the first start it fills the empty table.
+ */
+@Service
+public class CourseProgressRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseProgressRollupService.class);
+
+    private final UserCourseProgressRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    // Catalog events arrive in the writer's after-commit phase, so writes need a new transaction
+    private final TransactionTemplate newTransaction;
+    private final int reconcileBatch;
+    private final Counter correctedCounter;
+
+    public CourseProgressRollupService(UserCourseProgressRepository rollupRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${progress.rollup.reconcile-batch:500}") int reconcileBatch) {
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reconcileBatch = reconcileBatch;
+        this.correctedCounter = meterRegistry.counter("progress.rollup.corrected");
+    }
+
+    /** Recomputes the user's row for the course; joins the caller's transaction. */
+    public void refresh(Long userId, Long courseId) {
+        if (userId == null || courseId == null) {
+            return;
+        }
+        rollupRepository.refresh(userId, courseId);
+    }
+
+    /** The user's rows for every purchased course, by course id. */
+    public List<UserCourseProgress> getForUser(Long userId) {
+        return rollupRepository.findByUserIdOrderByCourseId(userId);
+    }
+
+    // Denominators move when a course gains or loses videos
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isFullRebuild()) {
+            return;
+        }
+        try {
+            int rows = newTransaction.execute(status -> rollupRepository.refreshCourse(event.changedCourseId()));
+            if (rows > 0) {
+                logger.info("📈 Refreshed {} progress rollups for course {}", rows, event.changedCourseId());
+            }
+        } catch (RuntimeException e) {
+            logger.error("❌ Refreshing progress rollups for course {} failed, the reconciler will fix them: {}",
+                    event.changedCourseId(), e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() > 0) {
+            return;
+        }
+        int rows = reconcile();
+        logger.info("📈 Course progress rollups backfilled: {} rows", rows);
+    }
+
+    /** Recomputes every purchaser's rows page by page; returns how many rows were inserted or corrected. */
+    @Scheduled(cron = "${progress.rollup.reconcile-cron:0 15 4 * * *}")
+    public int reconcile() {
+        long started = System.currentTimeMillis();
+        long afterUserId = 0;
+        int corrected = 0;
+        List<Long> userIds;
+        do {
+            userIds = rollupRepository.findPurchasingUserIdsAfter(afterUserId, reconcileBatch);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            List<Long> page = userIds;
+            corrected += transactionTemplate.execute(status ->
+                    rollupRepository.reconcileUsers(page) + rollupRepository.deleteOrphans(page));
+            afterUserId = userIds.get(userIds.size() - 1);
+        } while (userIds.size() == reconcileBatch);
+
+        correctedCounter.increment(corrected);
+        if (corrected > 0) {
+            logger.warn("⚠️ Progress rollup reconciler corrected {} rows in {} ms",
+                    corrected, System.currentTimeMillis() - started);
+        }
+        return corrected;
+    }
+}
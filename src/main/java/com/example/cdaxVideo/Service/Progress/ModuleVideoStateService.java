@@ -0,0 +1,141 @@
+package com.example.cdaxVideo.Service.Progress;
+
+import com.example.cdaxVideo.Entity.UserModuleVideoState;
+import com.example.cdaxVideo.Repository.UserModuleVideoStateRepository;
+import com.example.cdaxVideo.Repository.UserVideoProgressRepository;
+import com.example.cdaxVideo.Service.Catalog.CatalogSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Video unlock state machine for one user in one module, over the completed / unlocked
+ * bitmaps of {@link UserModuleVideoState}.
+ *
+ * Completing the video at position {@code i} sets bit {@code i} in both bitmaps and unlocks
+ * bit {@code i + 1}; the module is complete when the completed bitmap has one bit per video.
+ * A transition costs a fixed number of statements whatever the module length: lock the state
+ * row, one upsert of the changed {@code user_video_progress} rows and the state update. A
+ * state row built for another video list (videos added, removed or reordered) is rebuilt
+ * from the progress rows first, with one more query.
+ */
+@Service
+@RequiredArgsConstructor
+public class ModuleVideoStateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModuleVideoStateService.class);
+
+    private final UserModuleVideoStateRepository stateRepository;
+    private final UserVideoProgressRepository progressRepository;
+    private final CatalogSnapshot catalogSnapshot;
+
+    /** Outcome of completing one video. {@code unlockedVideoId} is null if nothing new was unlocked. */
+    public record Transition(Long courseId, Long moduleId, int completedVideos, int totalVideos,
+                             Long unlockedVideoId, boolean moduleCompleted) {
+    }
+
+    @Transactional
+    public Transition completeVideo(Long userId, Long moduleId, Long videoId) {
+        // The snapshot knows which module the video really belongs to
+        Long ownerModuleId = catalogSnapshot.findVideo(videoId)
+                .map(CatalogSnapshot.VideoView::moduleId)
+                .orElse(moduleId);
+        CatalogSnapshot.ModuleView module = catalogSnapshot.findModule(ownerModuleId).orElse(null);
+        int position = module == null ? -1 : positionOf(module, videoId);
+        if (position < 0) {
+            logger.warn("⚠️ Video {} not found in module {} of the catalog snapshot, marking it completed only",
+                    videoId, ownerModuleId);
+            progressRepository.applyUnlockTransition(userId, videoId, List.of(videoId));
+            Long courseId = module != null ? module.courseId() : null;
+            return new Transition(courseId, ownerModuleId, 0, 0, null, false);
+        }
+
+        List<Long> videoIds = videoIds(module);
+        UserModuleVideoState state = lockState(userId, module.id());
+        if (!matchesLayout(state, videoIds)) {
+            rebuild(state, userId, videoIds);
+        }
+
+        BitSet completed = BitSet.valueOf(state.getCompletedBits());
+        BitSet unlocked = BitSet.valueOf(state.getUnlockedBits());
+        completed.set(position);
+        unlocked.set(position);
+
+        List<Long> changed = new ArrayList<>(2);
+        changed.add(videoId);
+        Long unlockedVideoId = null;
+        int next = position + 1;
+        if (next < videoIds.size() && !unlocked.get(next)) {
+            unlocked.set(next);
+            unlockedVideoId = videoIds.get(next);
+            changed.add(unlockedVideoId);
+        }
+        progressRepository.applyUnlockTransition(userId, videoId, changed);
+
+        state.setCompletedBits(completed.toByteArray());
+        state.setUnlockedBits(unlocked.toByteArray());
+        state.setUpdatedAt(LocalDateTime.now());
+
+        int completedCount = completed.cardinality();
+        return new Transition(module.courseId(), module.id(), completedCount, videoIds.size(),
+                unlockedVideoId, completedCount == videoIds.size());
+    }
+
+    // The first transition for a module creates the row, so the lock always has a row to hold
+    private UserModuleVideoState lockState(Long userId, Long moduleId) {
+        return stateRepository.findForUpdate(userId, moduleId).orElseGet(() -> {
+            stateRepository.insertPlaceholder(userId, moduleId);
+            return stateRepository.findForUpdate(userId, moduleId).orElseThrow();
+        });
+    }
+
+    private void rebuild(UserModuleVideoState state, Long userId, List<Long> videoIds) {
+        Map<Long, Integer> positions = new HashMap<>(videoIds.size() * 2);
+        for (int i = 0; i < videoIds.size(); i++) {
+            positions.put(videoIds.get(i), i);
+        }
+        BitSet completed = new BitSet(videoIds.size());
+        BitSet unlocked = new BitSet(videoIds.size());
+        for (Object[] row : progressRepository.findProgressFlagsByUserIdAndVideoIdIn(userId, videoIds)) {
+            Integer i = positions.get((Long) row[0]);
+            if (i == null) continue;
+            if (Boolean.TRUE.equals(row[1])) unlocked.set(i);
+            if (Boolean.TRUE.equals(row[2])) completed.set(i);
+        }
+        state.setLayoutHash(videoIds.hashCode());
+        state.setVideoCount(videoIds.size());
+        state.setCompletedBits(completed.toByteArray());
+        state.setUnlockedBits(unlocked.toByteArray());
+    }
+
+    private static boolean matchesLayout(UserModuleVideoState state, List<Long> videoIds) {
+        return state.getVideoCount() == videoIds.size() && state.getLayoutHash() == videoIds.hashCode();
+    }
+
+    private static List<Long> videoIds(CatalogSnapshot.ModuleView module) {
+        List<Long> ids = new ArrayList<>(module.videos().size());
+        for (CatalogSnapshot.VideoView video : module.videos()) {
+            ids.add(video.id());
+        }
+        return ids;
+    }
+
+    private static int positionOf(CatalogSnapshot.ModuleView module, Long videoId) {
+        List<CatalogSnapshot.VideoView> videos = module.videos();
+        for (int i = 0; i < videos.size(); i++) {
+            if (videos.get(i).id().equals(videoId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.cdaxVideo.Service.Progress;
+
+import com.example.cdaxVideo.DTO.VideoProgressDTO;
+import com.example.cdaxVideo.Entity.UserVideoProgress;
+import com.example.cdaxVideo.Service.Catalog.CatalogSnapshot;
+import com.example.cdaxVideo.Service.VideoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Front door for progress heartbeats ({@code POST /api/videos/{videoId}/progress}).
+ *
+ * Ordinary heartbeats are checked against the catalog snapshot and merged into the
+ * {@link ProgressWriteBuffer} without touching the database. A heartbeat that reaches the
+ * auto-completion threshold (95% watched, fewer than 10 forward jumps) takes the buffered
+ * values and goes through {@link VideoService#updateVideoProgress} synchronously, so
+ * completion, unlocking and the response flags behave exactly as before.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProgressIngestService {
+
+    private final ProgressWriteBuffer progressBuffer;
+    private final CatalogSnapshot catalogSnapshot;
+    private final VideoService videoService;
+
+    public VideoProgressDTO recordProgress(VideoProgressDTO progressDTO) {
+        if (progressDTO.getVideoId() == null || progressDTO.getUserId() == null) {
+            throw new RuntimeException("Video ID and User ID are required");
+        }
+        if (!progressBuffer.isEnabled()) {
+            return toDto(videoService.updateVideoProgress(progressDTO));
+        }
+
+        Long userId = progressDTO.getUserId();
+        Long videoId = progressDTO.getVideoId();
+        CatalogSnapshot.VideoView video = catalogSnapshot.findVideo(videoId)
+                .orElseThrow(() -> new RuntimeException("Video not found with ID: " + videoId));
+
+        ProgressWriteBuffer.PendingProgress merged = progressBuffer.record(userId, videoId,
+                progressDTO.getWatchedSeconds(), progressDTO.getLastPositionSeconds(),
+                progressDTO.getForwardJumpsCount());
+
+        boolean completed = progressBuffer.isMarkedCompleted(userId, videoId);
+        if (!completed && reachesCompletion(merged, video)) {
+            ProgressWriteBuffer.PendingProgress taken = progressBuffer.take(userId, videoId);
+            UserVideoProgress saved = videoService.updateVideoProgress(
+                    toDto(userId, videoId, taken != null ? taken : merged));
+            if (saved.isCompleted()) {
+                progressBuffer.markCompleted(userId, videoId);
+            }
+            return toDto(saved);
+        }
+
+        // Only a playable video sends heartbeats, so it is reported as unlocked
+        VideoProgressDTO accepted = toDto(userId, videoId, merged);
+        accepted.setCompleted(completed);
+        accepted.setUnlocked(true);
+        return accepted;
+    }
+
+    // Same rule as VideoService.checkAndMarkCompletion
+    private static boolean reachesCompletion(ProgressWriteBuffer.PendingProgress progress,
+                                             CatalogSnapshot.VideoView video) {
+        if (progress.watchedSeconds() == null || video.duration() == null) {
+            return false;
+        }
+        return progress.watchedSeconds() >= (int) (video.duration() * 0.95)
+                && (progress.forwardJumpsCount() == null || progress.forwardJumpsCount() < 10);
+    }
+
+    private static VideoProgressDTO toDto(Long userId, Long videoId, ProgressWriteBuffer.PendingProgress p) {
+        return new VideoProgressDTO(videoId, userId, p.watchedSeconds(), p.lastPositionSeconds(),
+                p.forwardJumpsCount());
+    }
+
+    private static VideoProgressDTO toDto(UserVideoProgress progress) {
+        VideoProgressDTO dto = new VideoProgressDTO(progress.getVideo().getId(), progress.getUser().getId(),
+                progress.getWatchedSeconds(), progress.getLastPositionSeconds(), progress.getForwardJumpsCount());
+        dto.setCompleted(progress.isCompleted());
+        dto.setUnlocked(progress.isUnlocked());
+        return dto;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.cdaxVideo.Service.Progress;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for video progress heartbeats.
+ *
+ * The latest watched / position / forward-jump values per (user, video) are merged into a
+ * {@link ConcurrentHashMap} and written to {@code user_video_progress} with one JDBC batch
+ * upsert, every {@code progress.buffer.flush-interval-ms} or as soon as
+ * {@code progress.buffer.flush-threshold} keys are pending. Database writes therefore scale
+ * with the number of active (user, video) pairs per interval, not with the heartbeat rate.
+ *
+ * The buffer only ever touches the three counters and {@code last_updated_at}; unlock and
+ * completion flags stay with the synchronous path in {@code VideoService}. Pending values
+ * are lost if the process dies without a shutdown, at most one interval's worth.
+ */
+@Service
+public class ProgressWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProgressWriteBuffer.class);
+
+    // Inserting through a SELECT on users/videos skips rows whose user or video is gone
+    // instead of failing the whole batch on a foreign key
+    private static final String UPSERT_SQL =
+            "INSERT INTO user_video_progress " +
+            "(user_id, video_id, unlocked, completed, watched_seconds, last_position_seconds, " +
+            " forward_jumps_count, manually_completed, last_updated_at) " +
+            "SELECT u.id, v.id, false, false, COALESCE(?, 0), COALESCE(?, 0), COALESCE(?, 0), false, ? " +
+            "FROM users u, videos v WHERE u.id = ? AND v.id = ? " +
+            "ON CONFLICT (user_id, video_id) DO UPDATE SET " +
+            "watched_seconds = COALESCE(?, user_video_progress.watched_seconds), " +
+            "last_position_seconds = COALESCE(?, user_video_progress.last_position_seconds), " +
+            "forward_jumps_count = COALESCE(?, user_video_progress.forward_jumps_count), " +
+            "last_updated_at = EXCLUDED.last_updated_at";
+
+    private static final int MAX_COMPLETED_MARKERS = 50_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int flushThreshold;
+
+    private final ConcurrentHashMap<ProgressKey, PendingProgress> pending = new ConcurrentHashMap<>();
+    private final Set<ProgressKey> completed = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public ProgressWriteBuffer(JdbcTemplate jdbcTemplate,
+                               @Value("${progress.buffer.enabled:true}") boolean enabled,
+                               @Value("${progress.buffer.flush-threshold:5000}") int flushThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.flushThreshold = flushThreshold;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Merge a heartbeat into the pending entry and return the merged values. */
+    public PendingProgress record(Long userId, Long videoId, Integer watchedSeconds,
+                                  Integer lastPositionSeconds, Integer forwardJumpsCount) {
+        PendingProgress update = new PendingProgress(watchedSeconds, lastPositionSeconds, forwardJumpsCount,
+                LocalDateTime.now());
+        PendingProgress merged = pending.merge(new ProgressKey(userId, videoId), update, PendingProgress::then);
+
+        if (pending.size() >= flushThreshold && flushLock.tryLock()) {
+            try {
+                flushLocked();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        return merged;
+    }
+
+    /** Buffered values not yet written, if any. */
+    public PendingProgress peek(Long userId, Long videoId) {
+        return pending.get(new ProgressKey(userId, videoId));
+    }
+
+    /** Remove and return the buffered values so a synchronous write can apply them itself. */
+    public PendingProgress take(Long userId, Long videoId) {
+        return pending.remove(new ProgressKey(userId, videoId));
+    }
+
+    /** Remember that the pair is completed, so further heartbeats stay on the buffered path. */
+    public void markCompleted(Long userId, Long videoId) {
+        if (completed.size() >= MAX_COMPLETED_MARKERS) {
+            completed.clear(); // a forgotten marker only costs one extra synchronous check
+        }
+        completed.add(new ProgressKey(userId, videoId));
+    }
+
+    public boolean isMarkedCompleted(Long userId, Long videoId) {
+        return completed.contains(new ProgressKey(userId, videoId));
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${progress.buffer.flush-interval-ms:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        logger.info("💾 Progress buffer flushed on shutdown");
+    }
+
+    private void flushLocked() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<ProgressKey, PendingProgress>> batch = new ArrayList<>(pending.size());
+        for (ProgressKey key : pending.keySet()) {
+            PendingProgress value = pending.remove(key);
+            if (value != null) {
+                batch.add(Map.entry(key, value));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch, batch.size(), (ps, entry) -> {
+                ProgressKey key = entry.getKey();
+                PendingProgress p = entry.getValue();
+                setInt(ps, 1, p.watchedSeconds());
+                setInt(ps, 2, p.lastPositionSeconds());
+                setInt(ps, 3, p.forwardJumpsCount());
+                ps.setTimestamp(4, Timestamp.valueOf(p.updatedAt()));
+                ps.setLong(5, key.userId());
+                ps.setLong(6, key.videoId());
+                setInt(ps, 7, p.watchedSeconds());
+                setInt(ps, 8, p.lastPositionSeconds());
+                setInt(ps, 9, p.forwardJumpsCount());
+            });
+            logger.debug("💾 Flushed {} progress rows in {} ms", batch.size(), System.currentTimeMillis() - started);
+        } catch (DataAccessException e) {
+            // Put the values back underneath anything that arrived meanwhile; the next flush retries
+            for (Map.Entry<ProgressKey, PendingProgress> entry : batch) {
+                pending.merge(entry.getKey(), entry.getValue(), (newer, failed) -> failed.then(newer));
+            }
+            logger.error("❌ Progress flush of {} rows failed, will retry: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private static void setInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+
+    public record ProgressKey(Long userId, Long videoId) {
+    }
+
+    /** Latest known counters; a null field means "no update for this field". */
+    public record PendingProgress(Integer watchedSeconds, Integer lastPositionSeconds,
+                                  Integer forwardJumpsCount, LocalDateTime updatedAt) {
+
+        /** This entry followed by {@code newer}: newer non-null fields win. */
+        PendingProgress then(PendingProgress newer) {
+            return new PendingProgress(
+                    newer.watchedSeconds != null ? newer.watchedSeconds : watchedSeconds,
+                    newer.lastPositionSeconds != null ? newer.lastPositionSeconds : lastPositionSeconds,
+                    newer.forwardJumpsCount != null ? newer.forwardJumpsCount : forwardJumpsCount,
+                    newer.updatedAt.isAfter(updatedAt) ? newer.updatedAt : updatedAt);
+        }
+    }
+}
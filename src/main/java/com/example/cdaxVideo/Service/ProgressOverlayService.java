@@ -0,0 +1,199 @@
+package com.example.cdaxVideo.Service;
+
+import com.example.cdaxVideo.Entity.Course;
+import com.example.cdaxVideo.Entity.Module;
+import com.example.cdaxVideo.Entity.Video;
+import com.example.cdaxVideo.Repository.*;
+import com.example.cdaxVideo.Service.Catalog.CatalogSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Applies a user's locked/completed flags to a course structure.
+ *
+ * The course structure comes from the catalog snapshot, the user's video, module and
+ * assessment progress rows for the course are loaded with one query each, and every flag
+ * is then computed in a single pass. The number of SQL statements does not depend on the
+ * size of the course.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ProgressOverlayService {
+
+    private final CatalogSnapshot catalogSnapshot;
+    private final UserCoursePurchaseRepository userCoursePurchaseRepository;
+    private final UserVideoProgressRepository userVideoProgressRepository;
+    private final UserModuleProgressRepository userModuleProgressRepository;
+    private final UserAssessmentProgressRepository userAssessmentProgressRepository;
+
+    private static final Logger logger = LoggerFactory.getLogger(ProgressOverlayService.class);
+
+    /** First module videos that are open right after purchase. */
+    private static final int FREE_VIDEOS_IN_FIRST_MODULE = 3;
+
+    /**
+     * Course page view: module unlock comes from user_module_progress, the first module is
+     * always open for buyers.
+     */
+    public Optional<Course> loadCourseForUser(Long userId, Long courseId) {
+        Optional<Course> optionalCourse = catalogSnapshot.findCourse(courseId);
+        if (optionalCourse.isEmpty()) {
+            return Optional.empty();
+        }
+        Course course = optionalCourse.get();
+
+        boolean purchased = userCoursePurchaseRepository.existsByUserIdAndCourseId(userId, courseId);
+        course.setPurchased(purchased);
+
+        List<Module> modules = course.getModules();
+        if (!purchased) {
+            applyPreviewFlags(modules);
+            return Optional.of(course);
+        }
+
+        UserProgress progress = loadUserProgress(userId, courseId);
+        boolean previousModuleCompleted = false;
+
+        for (int mIndex = 0; mIndex < modules.size(); mIndex++) {
+            Module module = modules.get(mIndex);
+            boolean moduleUnlocked = mIndex == 0 || progress.isModuleUnlocked(module.getId());
+            module.setLocked(!moduleUnlocked);
+            module.setAssessmentLocked(!progress.isAssessmentUnlocked(module.getId()));
+
+            List<Video> videos = module.getVideos();
+            boolean previousVideosCompleted = true;
+
+            for (int vIndex = 0; vIndex < videos.size(); vIndex++) {
+                Video video = videos.get(vIndex);
+                boolean[] flags = progress.videoFlags(video.getId());
+
+                if (flags != null) {
+                    video.setLocked(!flags[0]);
+                    video.setCompleted(flags[1]);
+                } else {
+                    if (!moduleUnlocked) {
+                        video.setLocked(true);
+                    } else if (mIndex == 0) {
+                        video.setLocked(vIndex >= FREE_VIDEOS_IN_FIRST_MODULE && !previousVideosCompleted);
+                    } else {
+                        video.setLocked(!(previousModuleCompleted && vIndex == 0));
+                    }
+                    video.setCompleted(false);
+                }
+                previousVideosCompleted &= flags != null && flags[1];
+            }
+            previousModuleCompleted = previousVideosCompleted;
+        }
+
+        logger.debug("Applied progress overlay for user {} on course {} ({} modules)",
+                userId, courseId, modules.size());
+        return Optional.of(course);
+    }
+
+    /**
+     * Module page view: a module is open for buyers once every video of the previous module
+     * is completed.
+     */
+    public List<Module> loadModulesForUser(Long userId, Long courseId) {
+        List<Module> modules = catalogSnapshot.findCourse(courseId)
+                .map(Course::getModules)
+                .orElseGet(ArrayList::new);
+        boolean purchased = userCoursePurchaseRepository.existsByUserIdAndCourseId(userId, courseId);
+        UserProgress progress = loadUserProgress(userId, courseId);
+
+        boolean previousModuleCompleted = true;
+
+        for (int mIndex = 0; mIndex < modules.size(); mIndex++) {
+            Module module = modules.get(mIndex);
+            boolean moduleUnlocked = purchased && (mIndex == 0 || previousModuleCompleted);
+            module.setLocked(!moduleUnlocked);
+            module.setAssessmentLocked(!progress.isAssessmentUnlocked(module.getId()));
+
+            List<Video> videos = module.getVideos();
+            boolean previousVideosCompleted = true;
+
+            for (int vIndex = 0; vIndex < videos.size(); vIndex++) {
+                Video video = videos.get(vIndex);
+                boolean[] flags = progress.videoFlags(video.getId());
+
+                if (flags != null) {
+                    video.setLocked(!flags[0]);
+                    video.setCompleted(flags[1]);
+                } else {
+                    if (!moduleUnlocked) {
+                        video.setLocked(true);
+                    } else if (mIndex == 0 && vIndex < FREE_VIDEOS_IN_FIRST_MODULE) {
+                        video.setLocked(false);
+                    } else {
+                        video.setLocked(vIndex == 0 || !previousVideosCompleted);
+                    }
+                    video.setCompleted(false);
+                }
+                previousVideosCompleted &= flags != null && flags[1];
+            }
+            previousModuleCompleted = previousVideosCompleted;
+        }
+
+        return modules;
+    }
+
+    // Not purchased: only the first module and its first video are open
+    private void applyPreviewFlags(List<Module> modules) {
+        for (int mIndex = 0; mIndex < modules.size(); mIndex++) {
+            Module module = modules.get(mIndex);
+            module.setLocked(mIndex != 0);
+
+            List<Video> videos = module.getVideos();
+            for (int vIndex = 0; vIndex < videos.size(); vIndex++) {
+                Video video = videos.get(vIndex);
+                video.setLocked(!(mIndex == 0 && vIndex == 0));
+                video.setCompleted(false);
+            }
+        }
+    }
+
+    private UserProgress loadUserProgress(Long userId, Long courseId) {
+        UserProgress progress = new UserProgress();
+
+        for (Object[] row : userVideoProgressRepository.findProgressFlagsByUserIdAndCourseId(userId, courseId)) {
+            progress.videos.put((Long) row[0], new boolean[] { (Boolean) row[1], (Boolean) row[2] });
+        }
+        for (Object[] row : userModuleProgressRepository.findUnlockFlagsByUserIdAndCourseId(userId, courseId)) {
+            if (Boolean.TRUE.equals(row[1])) {
+                progress.unlockedModules.add((Long) row[0]);
+            }
+        }
+        for (Object[] row : userAssessmentProgressRepository.findFlagsByUserIdAndCourseId(userId, courseId)) {
+            if (Boolean.TRUE.equals(row[1]) || Boolean.TRUE.equals(row[2])) {
+                progress.unlockedAssessmentModules.add((Long) row[0]);
+            }
+        }
+        return progress;
+    }
+
+    /** User's progress rows for one course, keyed by id. */
+    private static final class UserProgress {
+        // videoId -> {unlocked, completed}
+        private final Map<Long, boolean[]> videos = new HashMap<>();
+        private final Set<Long> unlockedModules = new HashSet<>();
+        private final Set<Long> unlockedAssessmentModules = new HashSet<>();
+
+        boolean[] videoFlags(Long videoId) {
+            return videos.get(videoId);
+        }
+
+        boolean isModuleUnlocked(Long moduleId) {
+            return unlockedModules.contains(moduleId);
+        }
+
+        boolean isAssessmentUnlocked(Long moduleId) {
+            return unlockedAssessmentModules.contains(moduleId);
+        }
+    }
+}
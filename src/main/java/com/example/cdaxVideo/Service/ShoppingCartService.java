@@ -10,6 +10,7 @@ import com.example.cdaxVideo.Repository.CourseRepository;
 import com.example.cdaxVideo.Repository.UserRepository;
 import com.example.cdaxVideo.Repository.UserCoursePurchaseRepository;
 import com.example.cdaxVideo.DTO.*;
+import com.example.cdaxVideo.Service.Progress.CourseProgressRollupService;
 
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
@@ -24,15 +25,18 @@ public class ShoppingCartService {
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
     private final UserCoursePurchaseRepository purchaseRepository;
+    private final CourseProgressRollupService courseProgressRollup;
     
     public ShoppingCartService(ShoppingCartRepository cartRepository,
                               CourseRepository courseRepository,
                               UserRepository userRepository,
-                              UserCoursePurchaseRepository purchaseRepository) {
+                              UserCoursePurchaseRepository purchaseRepository,
+                              CourseProgressRollupService courseProgressRollup) {
         this.cartRepository = cartRepository;
         this.courseRepository = courseRepository;
         this.userRepository = userRepository;
         this.purchaseRepository = purchaseRepository;
+        this.courseProgressRollup = courseProgressRollup;
     }
     
     // ========== CRITICAL FIXES ==========
@@ -214,6 +218,8 @@ public class ShoppingCartService {
             purchase.setPurchasedOn(java.sql.Date.valueOf(LocalDateTime.now().toLocalDate()));
             
             purchaseRepository.save(purchase);
+            // Dashboard and course stats read the rollup, which needs a row for the new course
+            courseProgressRollup.refresh(userId, course.getId());
             purchasedCourseTitles.add(course.getTitle());
             
             // Use discounted price if available, otherwise use original price
@@ -0,0 +1,127 @@
+package com.example.cdaxVideo.Service;
+
+import com.example.cdaxVideo.Entity.UserStreak;
+import com.example.cdaxVideo.Entity.UserStreakMonth;
+import com.example.cdaxVideo.Repository.UserStreakMonthRepository;
+import com.example.cdaxVideo.Repository.UserStreakRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Rolls {@code user_streaks} day rows older than {@code streak.compaction.horizon-days} into
+ * one {@link UserStreakMonth} per (user, course, month) and deletes the day rows.
+ *
+ * Only whole months before the horizon are compacted. Each chunk of
+ * {@code streak.compaction.chunk-size} rows is locked, merged into the month rows and deleted
+ * in its own transaction, so the job never holds locks for long. A day row written later
+ * for an old month (a late event) is merged on the next run.
+ */
+@Service
+public class StreakCompactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreakCompactionService.class);
+
+    // The 30-day views must never reach into compacted months
+    private static final int MIN_HORIZON_DAYS = 31;
+
+    private final UserStreakRepository userStreakRepository;
+    private final UserStreakMonthRepository monthRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int horizonDays;
+    private final int chunkSize;
+
+    public StreakCompactionService(UserStreakRepository userStreakRepository,
+                                   UserStreakMonthRepository monthRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${streak.compaction.enabled:true}") boolean enabled,
+                                   @Value("${streak.compaction.horizon-days:120}") int horizonDays,
+                                   @Value("${streak.compaction.chunk-size:1000}") int chunkSize) {
+        this.userStreakRepository = userStreakRepository;
+        this.monthRepository = monthRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        if (horizonDays < MIN_HORIZON_DAYS) {
+            logger.warn("⚠️ streak.compaction.horizon-days={} is too short, using {}", horizonDays, MIN_HORIZON_DAYS);
+        }
+        this.horizonDays = Math.max(horizonDays, MIN_HORIZON_DAYS);
+        this.chunkSize = chunkSize;
+    }
+
+    /** Months starting before this date are kept as rollups only. */
+    public LocalDate compactedBefore(LocalDate today) {
+        return today.minusDays(horizonDays).withDayOfMonth(1);
+    }
+
+    public boolean isCompacted(LocalDate monthStart) {
+        return enabled && monthStart.isBefore(compactedBefore(LocalDate.now()));
+    }
+
+    @Scheduled(cron = "${streak.compaction.cron:0 30 3 * * *}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate cutoff = compactedBefore(LocalDate.now());
+        long started = System.currentTimeMillis();
+        int total = 0;
+        int compacted;
+        do {
+            compacted = transactionTemplate.execute(status -> compactChunk(cutoff));
+            total += compacted;
+        } while (compacted == chunkSize);
+
+        if (total > 0) {
+            logger.info("🗜️ Compacted {} streak day rows before {} in {} ms",
+                       total, cutoff, System.currentTimeMillis() - started);
+        }
+    }
+
+    private int compactChunk(LocalDate cutoff) {
+        List<UserStreak> days = userStreakRepository.findOlderThanForUpdate(cutoff, PageRequest.of(0, chunkSize));
+        if (days.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        LocalDate firstMonth = cutoff;
+        for (UserStreak day : days) {
+            userIds.add(day.getUserId());
+            LocalDate month = day.getStreakDate().withDayOfMonth(1);
+            if (month.isBefore(firstMonth)) firstMonth = month;
+        }
+
+        Map<MonthKey, UserStreakMonth> months = new HashMap<>();
+        for (UserStreakMonth month : monthRepository.findByUserIdInAndMonthStartBetween(userIds, firstMonth, cutoff)) {
+            months.put(new MonthKey(month.getUserId(), month.getCourseId(), month.getMonthStart()), month);
+        }
+
+        // Identity set: @Data equality changes as rows are merged into the month
+        Set<UserStreakMonth> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Long> ids = new ArrayList<>(days.size());
+        for (UserStreak day : days) {
+            LocalDate monthStart = day.getStreakDate().withDayOfMonth(1);
+            UserStreakMonth month = months.computeIfAbsent(new MonthKey(day.getUserId(), day.getCourseId(), monthStart),
+                    key -> new UserStreakMonth(key.userId(), key.courseId(), key.monthStart()));
+            month.add(day);
+            touched.add(month);
+            ids.add(day.getId());
+        }
+
+        monthRepository.saveAll(touched);
+        userStreakRepository.deleteAllByIdInBatch(ids);
+        return days.size();
+    }
+
+    private record MonthKey(Long userId, Long courseId, LocalDate monthStart) {
+    }
+}
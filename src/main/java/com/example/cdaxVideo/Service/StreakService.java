@@ -2,8 +2,9 @@ package com.example.cdaxVideo.Service;
 
 import com.example.cdaxVideo.DTO.*;
 import com.example.cdaxVideo.Entity.*;
-import com.example.cdaxVideo.Entity.Module;
 import com.example.cdaxVideo.Repository.*;
+import com.example.cdaxVideo.Service.Catalog.CatalogSnapshot;
+import com.example.cdaxVideo.Service.Catalog.CourseAggregates;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,14 +25,22 @@ public class StreakService {
     private final UserVideoProgressRepository userVideoProgressRepository;
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
-    private final VideoRepository videoRepository;
-    private final ModuleRepository moduleRepository;
+    private final CourseAggregates courseAggregates;
+    private final CatalogSnapshot catalogSnapshot;
+    private final StreakStateService streakStateService;
+    private final ActivityCalendarService activityCalendarService;
+    private final StreakCompactionService streakCompactionService;
+    private final UserStreakMonthRepository userStreakMonthRepository;
     
     private static final Logger logger = LoggerFactory.getLogger(StreakService.class);
     private static final int STREAK_CYCLE_DAYS = 30;
     
     // ========== UPDATE STREAK METHODS ==========
     
+    /**
+     * Adds a watch event to today's streak row with a single upsert: no entity loads, and
+     * concurrent completions for the same day cannot lose an increment.
+     */
     @Transactional
     public void updateStreakForVideoWatch(Long userId, Long courseId, Long videoId, 
                                           Integer watchedSeconds, boolean isCompleted) {
@@ -40,83 +49,42 @@ public class StreakService {
             logger.info("🎯 Starting streak update for user: {}, course: {}, video: {}", 
                        userId, courseId, videoId);
             
-            User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-            Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
-            Video video = videoRepository.findById(videoId)
-                .orElseThrow(() -> new RuntimeException("Video not found"));
-            
             LocalDate today = LocalDate.now();
+            int watchedDelta = watchedSeconds != null && watchedSeconds > 0 ? watchedSeconds : 0;
+            int rows = applyDailyActivity(userId, courseId, today, watchedDelta, isCompleted ? 1 : 0);
             
-            logger.info("📅 Today's date: {}", today);
-            
-            // Get or create streak for today
-            UserStreak streak = userStreakRepository
-                .findByUserIdAndCourseIdAndStreakDate(userId, courseId, today)
-                .orElseGet(() -> {
-                    logger.info("📝 Creating new streak record for user {} on {}", userId, today);
-                    UserStreak newStreak = new UserStreak();
-                    newStreak.setUser(user);
-                    newStreak.setCourse(course);
-                    newStreak.setStreakDate(today);
-                    newStreak.setCreatedAt(LocalDateTime.now());
-                    newStreak.setIsActiveDay(false);
-                    newStreak.setWatchedSeconds(0);
-                    newStreak.setCompletedVideosCount(0);
-                    newStreak.setProgressPercentage(0.0);
-                    return newStreak;
-                });
-            
-            // ✅ CRITICAL FIX: Set isActiveDay to true
-            streak.setIsActiveDay(true);
-            streak.setUpdatedAt(LocalDateTime.now());
-            
-            // Update watched seconds
-            int previousWatched = streak.getWatchedSeconds();
-            streak.addWatchedSeconds(watchedSeconds);
-            logger.info("⏱️ Updated watched seconds: {} -> {}", previousWatched, streak.getWatchedSeconds());
-            
-            // Update total available seconds if not set
-            if (streak.getTotalAvailableSeconds() == 0) {
-                logger.info("📊 Calculating total available seconds for course: {}", course.getTitle());
-                
-                int[] totals = calculateCourseTotals(courseId);
-                streak.setTotalAvailableSeconds(totals[0]);
-                streak.setTotalVideosCount(totals[1]);
-                
-                logger.info("📈 Course has {} videos with total {} seconds", totals[1], totals[0]);
-            }
-            
-            // Update video counts
-            if (isCompleted) {
-                int previousCompleted = streak.getCompletedVideosCount();
-                streak.setCompletedVideosCount(previousCompleted + 1);
-                logger.info("✅ Incremented completed videos: {} -> {}", 
-                          previousCompleted, streak.getCompletedVideosCount());
+            if (rows == 0) {
+                logger.warn("⚠️ Streak not updated: user {} or course {} not found", userId, courseId);
+                return;
             }
-            
-            // ✅ Calculate progress percentage
-            if (streak.getTotalAvailableSeconds() > 0) {
-                double progress = ((double) streak.getWatchedSeconds() / streak.getTotalAvailableSeconds()) * 100;
-                streak.setProgressPercentage(progress);
-                logger.info("📊 Progress percentage: {}% ({} / {} seconds)", 
-                          String.format("%.2f", progress), 
-                          streak.getWatchedSeconds(), 
-                          streak.getTotalAvailableSeconds());
-            }
-            
-            // Save the streak
-            UserStreak savedStreak = userStreakRepository.save(streak);
-            logger.info("💾 Saved streak record with ID: {}", savedStreak.getId());
-            
-            logger.info("✅ Streak updated successfully for user {} in course {}", userId, courseId);
+            logger.info("✅ Streak updated for user {} in course {} on {}: +{}s, +{} completed", 
+                       userId, courseId, today, watchedDelta, isCompleted ? 1 : 0);
             
         } catch (Exception e) {
             logger.error("❌ Error updating streak: {}", e.getMessage(), e);
         }
     }
     
+    /**
+     * Adds already-aggregated watch time and completions to one day's streak row.
+     * Returns 0 when the user or course no longer exists; database errors propagate.
+     */
+    @Transactional
+    public int applyDailyActivity(Long userId, Long courseId, LocalDate date,
+                                  int watchedSeconds, int completedVideos) {
+        CourseAggregates.CourseTotals totals = courseAggregates.get(courseId);
+        int rows = userStreakRepository.upsertDailyProgress(
+            userId, courseId, date, watchedSeconds, completedVideos,
+            (int) totals.totalSeconds(), totals.videoCount());
+        if (rows > 0) {
+            activityCalendarService.recordDay(userId, courseId, date);
+            if (watchedSeconds > 0) {
+                streakStateService.recordActiveDay(userId, courseId, date);
+            }
+        }
+        return rows;
+    }
+    
     // ========== GET STREAK METHODS ==========
     
     /**
@@ -135,7 +103,9 @@ public class StreakService {
         logger.info("📅 Found {} streak records between {} and {}", 
                    streaks.size(), startDate, endDate);
         
-        return buildStreakSummary(userId, courseId, streaks, startDate, endDate, false);
+        return buildStreakSummary(userId, courseId, streaks, startDate, endDate, false,
+            loadVideoDetailsByDay(userId, courseId, startDate, endDate),
+            streakStateService.getCourseCounts(userId, courseId, endDate));
     }
     
     /**
@@ -154,13 +124,21 @@ public class StreakService {
                    firstDay, lastDay, monthDate.lengthOfMonth());
         
         // Get streaks for the entire month
-        List<UserStreak> streaks = userStreakRepository
-            .findByUserIdAndCourseIdAndStreakDateBetween(userId, courseId, firstDay, lastDay);
+        List<UserStreak> streaks = new ArrayList<>(userStreakRepository
+            .findByUserIdAndCourseIdAndStreakDateBetween(userId, courseId, firstDay, lastDay));
+        
+        // Old months live in the monthly rollup; day rows there are late arrivals not yet compacted
+        if (streakCompactionService.isCompacted(firstDay)) {
+            userStreakMonthRepository.findByUserIdAndCourseIdAndMonthStart(userId, courseId, firstDay)
+                .ifPresent(month -> addRolledUpDays(streaks, month));
+        }
         
         logger.info("📅 Found {} streak records for month {}-{}", 
                    streaks.size(), monthDate.getYear(), monthDate.getMonth());
         
-        return buildStreakSummary(userId, courseId, streaks, firstDay, lastDay, true);
+        return buildStreakSummary(userId, courseId, streaks, firstDay, lastDay, true,
+            loadVideoDetailsByDay(userId, courseId, firstDay, lastDay),
+            streakStateService.getCourseCounts(userId, courseId, LocalDate.now()));
     }
     
     /**
@@ -179,31 +157,45 @@ public class StreakService {
         logger.info("📅 Found {} total streak records for user {}", allStreaks.size(), userId);
         
         // Group by course
-        Map<Course, List<UserStreak>> streaksByCourse = allStreaks.stream()
-            .collect(Collectors.groupingBy(UserStreak::getCourse));
+        Map<Long, List<UserStreak>> streaksByCourse = allStreaks.stream()
+            .collect(Collectors.groupingBy(s -> s.getCourse().getId()));
+        
+        // Video details for every course in one range query
+        Map<Long, Map<LocalDate, List<VideoProgressDetailDTO>>> detailsByCourse = new HashMap<>();
+        for (UserVideoProgress progress : userVideoProgressRepository.findByUserIdAndDateRangeWithVideoAndModule(
+                userId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay())) {
+            Long courseId = progress.getVideo().getModule().getCourse().getId();
+            addToDayBucket(detailsByCourse.computeIfAbsent(courseId, id -> new HashMap<>()), progress);
+        }
+        
+        Map<Long, StreakStateService.StreakCounts> counts = streakStateService.getAllCounts(userId, endDate);
         
         List<StreakSummaryDTO> courseSummaries = new ArrayList<>();
         
-        for (Map.Entry<Course, List<UserStreak>> entry : streaksByCourse.entrySet()) {
-            Course course = entry.getKey();
+        for (Map.Entry<Long, List<UserStreak>> entry : streaksByCourse.entrySet()) {
+            Long courseId = entry.getKey();
             List<UserStreak> courseStreaks = entry.getValue();
             
             logger.info("📚 Processing course: {} with {} streak records", 
-                       course.getTitle(), courseStreaks.size());
+                       courseId, courseStreaks.size());
             
             StreakSummaryDTO summary = buildStreakSummary(
-                userId, course.getId(), courseStreaks, startDate, endDate, false);
+                userId, courseId, courseStreaks, startDate, endDate, false,
+                detailsByCourse.getOrDefault(courseId, Map.of()),
+                StreakStateService.countsFor(counts, courseId));
             courseSummaries.add(summary);
         }
         
         // Calculate overall stats
-        int totalActiveDays = (int) allStreaks.stream()
-            .filter(UserStreak::getIsActiveDay)
-            .count();
+        // Distinct active days: the course bitmaps OR-ed together
+        int totalActiveDays = activityCalendarService.countActiveDays(userId, startDate, endDate);
         
         Map<String, Object> response = new HashMap<>();
         response.put("courseSummaries", courseSummaries);
         response.put("totalActiveDays", totalActiveDays);
+        StreakStateService.StreakCounts overall = StreakStateService.countsFor(counts, UserStreakState.ALL_COURSES);
+        response.put("currentStreakDays", overall.currentStreak());
+        response.put("longestStreakDays", overall.longestStreak());
         response.put("currentCycleStart", startDate.toString());
         response.put("currentCycleEnd", endDate.toString());
         response.put("cycleDurationDays", STREAK_CYCLE_DAYS);
@@ -224,6 +216,13 @@ public class StreakService {
         Optional<UserStreak> streakOpt = userStreakRepository
             .findByUserIdAndCourseIdAndStreakDate(userId, courseId, date);
         
+        // A compacted day only survives in its month's rollup
+        if (streakOpt.isEmpty() && streakCompactionService.isCompacted(date.withDayOfMonth(1))) {
+            streakOpt = userStreakMonthRepository
+                .findByUserIdAndCourseIdAndMonthStart(userId, courseId, date.withDayOfMonth(1))
+                .map(month -> rolledUpDay(month, date.getDayOfMonth()));
+        }
+        
         if (streakOpt.isEmpty()) {
             logger.info("📭 No streak record found for date {}", date);
             return createEmptyDayDTO(date);
@@ -236,7 +235,8 @@ public class StreakService {
         StreakDayDTO dto = convertToDayDTO(streak);
         
         // Fetch and set video details
-        List<VideoProgressDetailDTO> videoDetails = getVideoDetailsForDay(userId, courseId, date);
+        List<VideoProgressDetailDTO> videoDetails = loadVideoDetailsByDay(userId, courseId, date, date)
+            .getOrDefault(date, new ArrayList<>());
         dto.setVideoDetails(videoDetails);
         
         logger.info("📊 Returning {} video details for date {}", videoDetails.size(), date);
@@ -247,19 +247,21 @@ public class StreakService {
     // ========== BUILD STREAK SUMMARY METHODS ==========
     
     /**
-     * Build streak summary - unified method for both 30-day and month views
+     * Build streak summary - unified method for both 30-day and month views.
+     * Video details come pre-bucketed by day and streak counts from the streak state, so
+     * building does no queries of its own.
      */
-    @Transactional(readOnly = true)  // ADD THIS
     private StreakSummaryDTO buildStreakSummary(Long userId, Long courseId, 
                                                 List<UserStreak> streaks, 
                                                 LocalDate startDate, LocalDate endDate,
-                                                boolean isMonthView) {
+                                                boolean isMonthView,
+                                                Map<LocalDate, List<VideoProgressDetailDTO>> detailsByDay,
+                                                StreakStateService.StreakCounts counts) {
         
-        Course course = courseRepository.findById(courseId)
-            .orElseThrow(() -> new RuntimeException("Course not found"));
+        String courseTitle = courseTitle(courseId);
         
         logger.info("📅 Building {} streak summary for course: {}", 
-                   isMonthView ? "month" : "30-day", course.getTitle());
+                   isMonthView ? "month" : "30-day", courseTitle);
         
         // Create map for quick lookup
         Map<LocalDate, UserStreak> streakMap = streaks.stream()
@@ -274,10 +276,9 @@ public class StreakService {
             if (streak != null) {
                 StreakDayDTO dayDTO = convertToDayDTO(streak);
                 
-                // Fetch video details for active days
+                // Video details for active days
                 if (Boolean.TRUE.equals(streak.getIsActiveDay())) {
-                    List<VideoProgressDetailDTO> videoDetails = getVideoDetailsForDay(userId, courseId, currentDate);
-                    dayDTO.setVideoDetails(videoDetails);
+                    dayDTO.setVideoDetails(detailsByDay.getOrDefault(currentDate, new ArrayList<>()));
                 }
                 
                 days.add(dayDTO);
@@ -287,9 +288,9 @@ public class StreakService {
             currentDate = currentDate.plusDays(1);
         }
         
-        // Calculate streak stats
-        int currentStreak = calculateCurrentStreak(days);
-        int longestStreak = calculateLongestStreak(days);
+        // All-time streak stats
+        int currentStreak = counts.currentStreak();
+        int longestStreak = counts.longestStreak();
         
         // Calculate progress
         double overallProgress = calculateOverallProgress(days);
@@ -297,7 +298,7 @@ public class StreakService {
         // Create summary
         StreakSummaryDTO summary = new StreakSummaryDTO();
         summary.setCourseId(courseId);
-        summary.setCourseTitle(course.getTitle());
+        summary.setCourseTitle(courseTitle);
         summary.setCurrentStreakDays(currentStreak);
         summary.setLongestStreakDays(longestStreak);
         summary.setOverallProgress(overallProgress);
@@ -355,149 +356,102 @@ public class StreakService {
         return dto;
     }
     
-    /**
-     * Get video progress details for a specific day
-     */
-    @Transactional(readOnly = true)  // ADD THIS - CRITICAL FIX
-    private List<VideoProgressDetailDTO> getVideoDetailsForDay(Long userId, Long courseId, LocalDate date) {
-        try {
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
-            
-            List<UserVideoProgress> progressList = userVideoProgressRepository
-                .findByUserIdAndCourseIdAndDateRangeWithVideo(userId, courseId, startOfDay, endOfDay);
-            
-            if (progressList == null || progressList.isEmpty()) {
-                logger.info("📭 No video progress found for date {}", date);
-                return new ArrayList<>();
+    // Day rows rebuilt from a monthly rollup for the days that have no row of their own
+    private void addRolledUpDays(List<UserStreak> streaks, UserStreakMonth month) {
+        Set<LocalDate> present = streaks.stream().map(UserStreak::getStreakDate).collect(Collectors.toSet());
+        for (int d = 1; d <= month.getMonthStart().lengthOfMonth(); d++) {
+            if (present.contains(month.getMonthStart().withDayOfMonth(d))) {
+                continue;
             }
-            
-            logger.info("📹 Found {} video progress records for date {}", progressList.size(), date);
-            
-            List<VideoProgressDetailDTO> details = new ArrayList<>();
-            for (UserVideoProgress progress : progressList) {
-                try {
-                    Video video = progress.getVideo();  // ✅ Now this works within transaction
-                    
-                    VideoProgressDetailDTO dto = new VideoProgressDetailDTO();
-                    dto.setVideoId(video.getId());
-                    dto.setVideoTitle(video.getTitle());
-                    dto.setWatchedSeconds(progress.getWatchedSeconds());
-                    dto.setVideoDuration(video.getDuration());
-                    
-                    // Calculate progress percentage
-                    double videoProgress = 0.0;
-                    if (video.getDuration() != null && video.getDuration() > 0) {
-                        videoProgress = (progress.getWatchedSeconds() * 100.0) / video.getDuration();
-                    }
-                    dto.setVideoProgress(videoProgress);
-                    dto.setIsCompleted(progress.isCompleted());
-                    
-                    if (progress.getLastUpdatedAt() != null) {
-                        dto.setWatchedDate(progress.getLastUpdatedAt().toLocalDate());
-                    }
-                    
-                    details.add(dto);
-                    
-                } catch (Exception e) {
-                    logger.error("❌ Error converting progress {}: {}", progress.getId(), e.getMessage());
-                }
+            UserStreak day = rolledUpDay(month, d);
+            if (day != null) {
+                streaks.add(day);
             }
-            
-            return details;
-            
-        } catch (Exception e) {
-            logger.error("❌ Error getting video details for day {}: {}", date, e.getMessage(), e);
-            return new ArrayList<>();
         }
     }
     
-    /**
-     * Calculate course totals (duration and video count)
-     */
-    @Transactional(readOnly = true)  // ADD THIS
-    private int[] calculateCourseTotals(Long courseId) {
-        List<Module> modules = moduleRepository.findByCourseId(courseId);
-        int totalDuration = 0;
-        int totalVideos = 0;
-        
-        for (Module module : modules) {
-            List<Video> moduleVideos = videoRepository.findByModuleId(module.getId());
-            totalVideos += moduleVideos.size();
-            for (Video v : moduleVideos) {
-                totalDuration += v.getDuration();
-            }
+    // One day of a monthly rollup as a day row; null if nothing happened that day
+    private UserStreak rolledUpDay(UserStreakMonth month, int dayOfMonth) {
+        int seconds = month.secondsOn(dayOfMonth);
+        if (seconds == 0 && !month.isActiveOn(dayOfMonth)) {
+            return null;
         }
-        
-        return new int[]{totalDuration, totalVideos};
+        int total = month.availableSecondsOn(dayOfMonth);
+        UserStreak day = new UserStreak();
+        day.setUserId(month.getUserId());
+        day.setCourseId(month.getCourseId());
+        day.setStreakDate(month.getMonthStart().withDayOfMonth(dayOfMonth));
+        day.setWatchedSeconds(seconds);
+        day.setTotalAvailableSeconds(total);
+        day.setProgressPercentage(total > 0 ? seconds * 100.0 / total : 0.0);
+        day.setCompletedVideosCount(month.completedVideosOn(dayOfMonth));
+        day.setTotalVideosCount(month.totalVideosOn(dayOfMonth));
+        day.setIsActiveDay(month.isActiveOn(dayOfMonth));
+        return day;
     }
     
-    /**
-     * Color coding based on progress percentage
-     */
-    private String getColorCode(Double percentage) {
-        if (percentage == null || percentage == 0) return "#E5E7EB"; // Gray
-        if (percentage < 25) return "#FEF3C7"; // Light yellow
-        if (percentage < 50) return "#FDE68A"; // Yellow
-        if (percentage < 75) return "#FBBF24"; // Orange
-        if (percentage < 100) return "#F59E0B"; // Dark orange
-        return "#10B981"; // Green for 100%
+    // Title from the catalog snapshot; the database only for a course it does not have yet
+    private String courseTitle(Long courseId) {
+        return catalogSnapshot.findCourseView(courseId)
+            .map(CatalogSnapshot.CourseView::title)
+            .orElseGet(() -> courseRepository.findById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"))
+                .getTitle());
     }
     
     /**
-     * Calculate current streak from days list
+     * Video progress details for every day of [startDate, endDate], keyed by the
+     * {@code lastUpdatedAt} date: one fetch-joined range query for the whole window.
      */
-    private int calculateCurrentStreak(List<StreakDayDTO> days) {
-        int streak = 0;
-        LocalDate today = LocalDate.now();
-        
-        // Sort days newest first
-        List<StreakDayDTO> sortedDays = new ArrayList<>(days);
-        sortedDays.sort((a, b) -> b.getDate().compareTo(a.getDate()));
-        
-        for (StreakDayDTO day : sortedDays) {
-            if (day.getDate().isAfter(today)) {
-                continue; // Skip future dates
-            }
+    private Map<LocalDate, List<VideoProgressDetailDTO>> loadVideoDetailsByDay(Long userId, Long courseId,
+                                                                             LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, List<VideoProgressDetailDTO>> detailsByDay = new HashMap<>();
+        try {
+            List<UserVideoProgress> progressList = userVideoProgressRepository
+                .findByUserIdAndCourseIdAndDateRangeWithVideo(userId, courseId,
+                    startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
             
-            if (day.getDate().equals(today)) {
-                // Today - check if there's significant progress
-                if (day.getProgressPercentage() != null && day.getProgressPercentage() >= 5.0) {
-                    streak++;
-                } else {
-                    break;
-                }
-            } else if (Boolean.TRUE.equals(day.getIsActiveDay())) {
-                streak++;
-            } else {
-                break;
+            for (UserVideoProgress progress : progressList) {
+                addToDayBucket(detailsByDay, progress);
             }
+            logger.info("📹 Found {} video progress records on {} days between {} and {}", 
+                       progressList.size(), detailsByDay.size(), startDate, endDate);
+        } catch (Exception e) {
+            logger.error("❌ Error getting video details between {} and {}: {}", startDate, endDate, e.getMessage(), e);
+        }
+        return detailsByDay;
+    }
+    
+    private void addToDayBucket(Map<LocalDate, List<VideoProgressDetailDTO>> detailsByDay, UserVideoProgress progress) {
+        if (progress.getLastUpdatedAt() == null) {
+            return;
+        }
+        Video video = progress.getVideo();
+        
+        VideoProgressDetailDTO dto = new VideoProgressDetailDTO();
+        dto.setVideoId(video.getId());
+        dto.setVideoTitle(video.getTitle());
+        dto.setWatchedSeconds(progress.getWatchedSeconds());
+        dto.setVideoDuration(video.getDuration());
+        
+        // Calculate progress percentage
+        double videoProgress = 0.0;
+        if (video.getDuration() != null && video.getDuration() > 0) {
+            videoProgress = (progress.getWatchedSeconds() * 100.0) / video.getDuration();
         }
+        dto.setVideoProgress(videoProgress);
+        dto.setIsCompleted(progress.isCompleted());
         
-        return streak;
+        LocalDate date = progress.getLastUpdatedAt().toLocalDate();
+        dto.setWatchedDate(date);
+        detailsByDay.computeIfAbsent(date, d -> new ArrayList<>()).add(dto);
     }
     
     /**
-     * Calculate longest streak from days list
+     * Color coding based on progress percentage
      */
-    private int calculateLongestStreak(List<StreakDayDTO> days) {
-        int maxStreak = 0;
-        int currentStreak = 0;
-        
-        // Sort chronologically
-        List<StreakDayDTO> sortedDays = new ArrayList<>(days);
-        sortedDays.sort(Comparator.comparing(StreakDayDTO::getDate));
-        
-        for (StreakDayDTO day : sortedDays) {
-            if (Boolean.TRUE.equals(day.getIsActiveDay())) {
-                currentStreak++;
-                maxStreak = Math.max(maxStreak, currentStreak);
-            } else {
-                currentStreak = 0;
-            }
-        }
-        
-        return maxStreak;
+    private String getColorCode(Double percentage) {
+        return ActivityCalendarService.COLOR_CODES.get(ActivityCalendarService.levelFor(percentage));
     }
     
     /**
@@ -583,16 +537,20 @@ public class StreakService {
             streak.setIsActiveDay(true);
             streak.setWatchedSeconds(watchedSeconds);
             
-            int[] totals = calculateCourseTotals(courseId);
-            streak.setTotalAvailableSeconds(totals[0]);
-            streak.setTotalVideosCount(totals[1]);
+            CourseAggregates.CourseTotals totals = courseAggregates.get(courseId);
+            streak.setTotalAvailableSeconds((int) totals.totalSeconds());
+            streak.setTotalVideosCount(totals.videoCount());
             
-            if (totals[0] > 0) {
-                double progress = ((double) watchedSeconds / totals[0]) * 100;
+            if (totals.totalSeconds() > 0) {
+                double progress = ((double) watchedSeconds / totals.totalSeconds()) * 100;
                 streak.setProgressPercentage(progress);
             }
             
-            UserStreak saved = userStreakRepository.save(streak);
+            UserStreak saved = userStreakRepository.saveAndFlush(streak);
+            activityCalendarService.recordDay(userId, courseId, date);
+            if (watchedSeconds > 0) {
+                streakStateService.recordActiveDay(userId, courseId, date);
+            }
             logger.info("✅ Created test streak with ID: {}", saved.getId());
             
             return saved;
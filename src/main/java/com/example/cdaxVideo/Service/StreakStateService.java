@@ -0,0 +1,83 @@
+package com.example.cdaxVideo.Service;
+
+import com.example.cdaxVideo.Entity.UserStreakState;
+import com.example.cdaxVideo.Repository.UserStreakStateRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All-time current / longest streak counters per (user, course) and per user.
+ *
+ * A day becoming active costs one upsert per counter row; nothing is recomputed from the
+ * streak history. The current run is not reset when a day is missed: a read treats a run
+ * whose last active day is before yesterday as 0, and the next active day starts over.
+ */
+@Service
+@RequiredArgsConstructor
+public class StreakStateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreakStateService.class);
+
+    private final UserStreakStateRepository stateRepository;
+
+    /** Counters as of a given day. */
+    public record StreakCounts(int currentStreak, int longestStreak, LocalDate lastActiveDate) {
+        static final StreakCounts NONE = new StreakCounts(0, 0, null);
+    }
+
+    // Existing streak history is folded into the counters once, on the first start
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (stateRepository.count() > 0) {
+            return;
+        }
+        int rows = stateRepository.backfillFromHistory();
+        logger.info("🔥 Streak state backfilled from history: {} rows", rows);
+    }
+
+    /** Marks the day active for the course and for the user overall. */
+    @Transactional
+    public void recordActiveDay(Long userId, Long courseId, LocalDate day) {
+        stateRepository.recordActiveDay(userId, courseId, day);
+        stateRepository.recordActiveDay(userId, UserStreakState.ALL_COURSES, day);
+    }
+
+    @Transactional(readOnly = true)
+    public StreakCounts getCourseCounts(Long userId, Long courseId, LocalDate today) {
+        return stateRepository.findByUserIdAndCourseId(userId, courseId)
+            .map(state -> toCounts(state, today))
+            .orElse(StreakCounts.NONE);
+    }
+
+    /** Counters for every course of the user, plus the overall row under {@link UserStreakState#ALL_COURSES}. */
+    @Transactional(readOnly = true)
+    public Map<Long, StreakCounts> getAllCounts(Long userId, LocalDate today) {
+        List<UserStreakState> states = stateRepository.findByUserId(userId);
+        Map<Long, StreakCounts> counts = new HashMap<>();
+        for (UserStreakState state : states) {
+            counts.put(state.getCourseId(), toCounts(state, today));
+        }
+        return counts;
+    }
+
+    public static StreakCounts countsFor(Map<Long, StreakCounts> counts, Long courseId) {
+        return counts.getOrDefault(courseId, StreakCounts.NONE);
+    }
+
+    private static StreakCounts toCounts(UserStreakState state, LocalDate today) {
+        LocalDate last = state.getLastActiveDate();
+        boolean runAlive = last != null && !last.isBefore(today.minusDays(1));
+        return new StreakCounts(runAlive ? state.getCurrentStreak() : 0, state.getLongestStreak(), last);
+    }
+}
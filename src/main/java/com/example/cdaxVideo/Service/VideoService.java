@@ -1,5 +1,6 @@
 package com.example.cdaxVideo.Service;
 
+import com.example.cdaxVideo.DTO.ProgressSyncRequestDTO;
 import com.example.cdaxVideo.DTO.VideoCompletionRequestDTO;
 import com.example.cdaxVideo.DTO.VideoProgressDTO;
 import com.example.cdaxVideo.Entity.User;
@@ -8,14 +9,24 @@ import com.example.cdaxVideo.Entity.UserVideoProgress;
 import com.example.cdaxVideo.Repository.UserRepository;
 import com.example.cdaxVideo.Repository.VideoRepository;
 import com.example.cdaxVideo.Repository.UserVideoProgressRepository;
+import com.example.cdaxVideo.Service.Activity.VideoCompletedEvent;
+import com.example.cdaxVideo.Service.Progress.ProgressWriteBuffer;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class VideoService {
@@ -25,19 +36,22 @@ public class VideoService {
     private final VideoRepository videoRepository;
     private final UserRepository userRepository;
     private final UserVideoProgressRepository progressRepository;
-    private final StreakService streakService;
+    private final ApplicationEventPublisher eventPublisher;
     private final CourseService courseService; // ✅ ADDED: Inject CourseService
+    private final ProgressWriteBuffer progressBuffer;
 
     public VideoService(VideoRepository videoRepository,
                        UserRepository userRepository,
                        UserVideoProgressRepository progressRepository,
-                       StreakService streakService,
-                       @Lazy CourseService courseService) { // ✅ ADDED: CourseService parameter
+                       ApplicationEventPublisher eventPublisher,
+                       @Lazy CourseService courseService, // ✅ ADDED: CourseService parameter
+                       ProgressWriteBuffer progressBuffer) {
         this.videoRepository = videoRepository;
         this.userRepository = userRepository;
         this.progressRepository = progressRepository;
-        this.streakService = streakService;
+        this.eventPublisher = eventPublisher;
         this.courseService = courseService; // ✅ INITIALIZE
+        this.progressBuffer = progressBuffer;
     }
 
     /**
@@ -67,6 +81,9 @@ public UserVideoProgress markVideoAsCompleted(VideoCompletionRequestDTO request)
             .findByUserIdAndVideoId(user.getId(), video.getId())
             .orElseGet(() -> createNewProgressRecord(user, video));
     
+    // Fold in heartbeats still buffered, so a later flush cannot roll the row back
+    applyPendingProgress(progress, progressBuffer.take(user.getId(), video.getId()));
+    
     // Mark as completed
     progress.setCompleted(true);
     progress.setUnlocked(true); // Video should be unlocked when completed
@@ -79,9 +96,10 @@ public UserVideoProgress markVideoAsCompleted(VideoCompletionRequestDTO request)
     
     // Save progress first
     UserVideoProgress savedProgress = progressRepository.save(progress);
+    progressBuffer.markCompleted(user.getId(), video.getId());
     
-    // Update streak
-    updateStreakForVideoCompletion(request, video, savedProgress);
+    // Streak and activity are updated asynchronously once this transaction commits
+    publishVideoCompleted(user.getId(), request.getCourseId(), video, savedProgress);
     
     // ✅ USE EXISTING UNLOCKING FLOW FROM CourseService
     // This will handle: unlocking next video, unlocking assessment, unlocking next module
@@ -108,49 +126,18 @@ public UserVideoProgress markVideoAsCompleted(VideoCompletionRequestDTO request)
     return savedProgress;
 }
     /**
-     * ✅ NEW METHOD: Update streak when video is completed
+     * Hands streak and daily activity bookkeeping to the activity pipeline; it runs after commit
      */
-private void updateStreakForVideoCompletion(VideoCompletionRequestDTO request, 
-                                           Video video, 
-                                           UserVideoProgress progress) {
-    try {
-        if (request.getCourseId() != null) {
-            // Get video duration or watched seconds
-            int watchedSeconds = progress.getWatchedSeconds() != null ? 
-                               progress.getWatchedSeconds() : video.getDuration();
-            
-            logger.info("📞 ===== CALLING STREAK SERVICE =====");
-            logger.info("   ├─ User ID: {}", request.getUserId());
-            logger.info("   ├─ Course ID: {}", request.getCourseId());
-            logger.info("   ├─ Video ID: {}", request.getVideoId());
-            logger.info("   ├─ Video Title: {}", video.getTitle());
-            logger.info("   ├─ Video Duration: {}s", video.getDuration());
-            logger.info("   ├─ Watched Seconds: {}s", watchedSeconds);
-            logger.info("   ├─ Is Completed: {}", true);
-            logger.info("   └─ Current Time: {}", new Date());
-            
-            // Call streak service
-            streakService.updateStreakForVideoWatch(
-                request.getUserId(),
-                request.getCourseId(),
-                request.getVideoId(),
-                watchedSeconds,
-                true // isCompleted
-            );
-            
-            logger.info("✅ StreakService called successfully");
-            
-            // Log after call to verify
-            logger.info("📊 After streak update - checking database...");
-            
-        } else {
-            logger.warn("⚠️ Cannot update streak: Course ID is null for video {} user {}", 
-                request.getVideoId(), request.getUserId());
+    private void publishVideoCompleted(Long userId, Long courseId, Video video, UserVideoProgress progress) {
+        if (courseId == null) {
+            logger.warn("⚠️ Cannot update streak: Course ID is null for video {} user {}", video.getId(), userId);
+            return;
         }
-    } catch (Exception e) {
-        logger.error("❌ Failed to update streak for video completion: {}", e.getMessage(), e);
+        int watchedSeconds = progress.getWatchedSeconds() != null ?
+                             progress.getWatchedSeconds() : video.getDuration();
+        eventPublisher.publishEvent(
+            new VideoCompletedEvent(userId, courseId, video.getId(), watchedSeconds, LocalDate.now()));
     }
-}
 
     /**
      * Updates video progress (watch time, position, forward jumps)
@@ -199,6 +186,154 @@ private void updateStreakForVideoCompletion(VideoCompletionRequestDTO request,
         return progressRepository.save(progress);
     }
 
+    /**
+     * Applies a batch of offline progress and completion events for one user in one transaction.
+     * Events are collapsed per video (highest watchedSeconds, latest position and jump count,
+     * completed if any event completes it); videos and progress rows are read with one query
+     * each and written with one saveAll. Returns one result per event, in request order.
+     * Streak events and unlocks only follow a video's first completion, so a retried batch
+     * does not count it again.
+     */
+    @Transactional
+    public List<Map<String, Object>> syncProgressBatch(Long userId, List<ProgressSyncRequestDTO.Event> events) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+        
+        Map<Long, CollapsedProgress> byVideo = new LinkedHashMap<>();
+        for (ProgressSyncRequestDTO.Event event : events) {
+            if (event != null && event.getVideoId() != null) {
+                byVideo.computeIfAbsent(event.getVideoId(), id -> new CollapsedProgress()).add(event);
+            }
+        }
+        
+        Map<Long, Video> videos = new HashMap<>();
+        for (Video video : videoRepository.findAllById(byVideo.keySet())) {
+            videos.put(video.getId(), video);
+        }
+        Map<Long, UserVideoProgress> rows = new HashMap<>();
+        for (UserVideoProgress row : progressRepository.findByUserIdAndVideoIdIn(userId, byVideo.keySet())) {
+            rows.put(row.getVideo().getId(), row);
+        }
+        
+        Map<Long, UserVideoProgress> applied = new LinkedHashMap<>();
+        // Offline clients retry whole batches; only a first completion may count
+        Set<Long> newlyCompleted = new HashSet<>();
+        for (Map.Entry<Long, CollapsedProgress> entry : byVideo.entrySet()) {
+            Video video = videos.get(entry.getKey());
+            if (video == null) continue;
+            CollapsedProgress collapsed = entry.getValue();
+            
+            UserVideoProgress progress = rows.get(video.getId());
+            if (progress == null) {
+                progress = createNewProgressRecord(user, video);
+            }
+            boolean wasCompleted = progress.isCompleted();
+            applyPendingProgress(progress, progressBuffer.take(userId, video.getId()));
+            
+            if (collapsed.watchedSeconds != null) {
+                int current = progress.getWatchedSeconds() != null ? progress.getWatchedSeconds() : 0;
+                progress.setWatchedSeconds(Math.max(current, collapsed.watchedSeconds));
+            }
+            if (collapsed.lastPositionSeconds != null) {
+                progress.setLastPositionSeconds(collapsed.lastPositionSeconds);
+            }
+            if (collapsed.forwardJumpsCount != null) {
+                progress.setForwardJumpsCount(collapsed.forwardJumpsCount);
+            }
+            if (collapsed.completed) {
+                if (!wasCompleted) {
+                    newlyCompleted.add(video.getId());
+                }
+                progress.setCompleted(true);
+                progress.setUnlocked(true);
+                if (progress.getWatchedSeconds() == null ||
+                    progress.getWatchedSeconds() < (int)(video.getDuration() * 0.95)) {
+                    progress.setWatchedSeconds((int)(video.getDuration() * 0.95));
+                }
+            }
+            applied.put(video.getId(), progress);
+        }
+        
+        progressRepository.saveAll(applied.values());
+        
+        // Completion side effects need the rows to exist, so they run after the save, and
+        // only for videos this batch completed
+        boolean anyCompleted = false;
+        for (UserVideoProgress progress : applied.values()) {
+            Video video = videos.get(progress.getVideo().getId());
+            if (newlyCompleted.contains(video.getId())) {
+                Long moduleId = video.getModule().getId();
+                Long courseId = video.getModule().getCourse().getId();
+                publishVideoCompleted(userId, courseId, video, progress);
+                try {
+                    courseService.completeVideoAndUnlockNext(userId, courseId, moduleId, video.getId());
+                } catch (Exception e) {
+                    logger.error("❌ Error unlocking after batch completion of video {}: {}", video.getId(), e.getMessage());
+                }
+            } else {
+                checkAndMarkCompletion(progress, video);
+            }
+            if (progress.isCompleted()) {
+                progressBuffer.markCompleted(userId, video.getId());
+                anyCompleted = true;
+            }
+        }
+        
+        if (anyCompleted && user.getIsNewUser() != null && user.getIsNewUser() == 1) {
+            user.setIsNewUser(0);
+        }
+        
+        List<Map<String, Object>> results = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            ProgressSyncRequestDTO.Event event = events.get(i);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", i);
+            UserVideoProgress progress = event != null && event.getVideoId() != null
+                    ? applied.get(event.getVideoId()) : null;
+            if (progress == null) {
+                result.put("videoId", event != null ? event.getVideoId() : null);
+                result.put("success", false);
+                result.put("error", event == null || event.getVideoId() == null
+                        ? "Video ID is required" : "Video not found with ID: " + event.getVideoId());
+            } else {
+                result.put("videoId", event.getVideoId());
+                result.put("success", true);
+                result.put("watchedSeconds", progress.getWatchedSeconds());
+                result.put("lastPositionSeconds", progress.getLastPositionSeconds());
+                result.put("completed", progress.isCompleted());
+                result.put("unlocked", progress.isUnlocked());
+            }
+            results.add(result);
+        }
+        
+        logger.info("Synced {} progress events ({} videos) for user {}", events.size(), applied.size(), userId);
+        return results;
+    }
+
+    /**
+     * Events for one video folded together, oldest first
+     */
+    private static final class CollapsedProgress {
+        Integer watchedSeconds;
+        Integer lastPositionSeconds;
+        Integer forwardJumpsCount;
+        boolean completed;
+
+        void add(ProgressSyncRequestDTO.Event event) {
+            if (event.getWatchedSeconds() != null) {
+                watchedSeconds = watchedSeconds == null
+                        ? event.getWatchedSeconds() : Math.max(watchedSeconds, event.getWatchedSeconds());
+            }
+            if (event.getLastPositionSeconds() != null) {
+                lastPositionSeconds = event.getLastPositionSeconds();
+            }
+            if (event.getForwardJumpsCount() != null) {
+                forwardJumpsCount = event.getForwardJumpsCount();
+            }
+            completed |= event.isCompletion();
+        }
+    }
+
     /**
      * ✅ NEW METHOD: Update streak for video progress updates
      */
@@ -236,6 +371,14 @@ private void updateStreakForVideoCompletion(VideoCompletionRequestDTO request,
             // Note: completedOn is not included in VideoProgressDTO
         }
         
+        // Heartbeats still waiting in the write-behind buffer are newer than the row
+        ProgressWriteBuffer.PendingProgress pending = progressBuffer.peek(userId, videoId);
+        if (pending != null) {
+            if (pending.watchedSeconds() != null) dto.setWatchedSeconds(pending.watchedSeconds());
+            if (pending.lastPositionSeconds() != null) dto.setLastPositionSeconds(pending.lastPositionSeconds());
+            if (pending.forwardJumpsCount() != null) dto.setForwardJumpsCount(pending.forwardJumpsCount());
+        }
+        
         return dto;
     }
 
@@ -254,10 +397,12 @@ private void updateStreakForVideoCompletion(VideoCompletionRequestDTO request,
                 .findByUserIdAndVideoId(userId, videoId)
                 .orElseGet(() -> createNewProgressRecord(user, video));
         
+        applyPendingProgress(progress, progressBuffer.take(userId, videoId));
         progress.setCompleted(true);
         progress.setUnlocked(true);
         progress.setManuallyCompleted(true);
         progress.setWatchedSeconds(video.getDuration());
+        progressBuffer.markCompleted(userId, videoId);
         
         // ✅ Also call CourseService to handle unlocking flow
         try {
@@ -326,6 +471,24 @@ private void updateStreakForVideoCompletion(VideoCompletionRequestDTO request,
         return progress;
     }
 
+    /**
+     * Helper method to apply buffered heartbeat values to a progress record
+     */
+    private void applyPendingProgress(UserVideoProgress progress, ProgressWriteBuffer.PendingProgress pending) {
+        if (pending == null) {
+            return;
+        }
+        if (pending.watchedSeconds() != null) {
+            progress.setWatchedSeconds(pending.watchedSeconds());
+        }
+        if (pending.lastPositionSeconds() != null) {
+            progress.setLastPositionSeconds(pending.lastPositionSeconds());
+        }
+        if (pending.forwardJumpsCount() != null) {
+            progress.setForwardJumpsCount(pending.forwardJumpsCount());
+        }
+    }
+
     /**
      * Checks if video should be marked as completed based on watch time
      */
@@ -0,0 +1,128 @@
+package com.example.cdaxVideo.Config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteTrieTest {
+
+    private static final RouteTrie PUBLIC = RouteTrie.of(PublicRoutes.ROUTES);
+
+    private static RouteTrie trie(PublicRoutes.Route... routes) {
+        return RouteTrie.of(List.of(routes));
+    }
+
+    private static PublicRoutes.Route get(String pattern) {
+        return new PublicRoutes.Route(HttpMethod.GET, pattern);
+    }
+
+    @Test
+    void doubleStarMatchesItsBarePrefix() {
+        RouteTrie trie = trie(new PublicRoutes.Route(null, "/api/debug/**"));
+
+        assertTrue(trie.matches("GET", "/api/debug"));
+        assertTrue(trie.matches("POST", "/api/debug/"));
+        assertTrue(trie.matches("GET", "/api/debug/a/b/c"));
+        assertFalse(trie.matches("GET", "/api/debugger"));
+        assertFalse(trie.matches("GET", "/api"));
+    }
+
+    @Test
+    void digitPlaceholderMatchesDigitsOnly() {
+        RouteTrie trie = trie(get("/api/courses/{id:\\d+}"));
+
+        assertTrue(trie.matches("GET", "/api/courses/42"));
+        assertTrue(trie.matches("GET", "/api/courses/42?x=1"));
+        assertFalse(trie.matches("GET", "/api/courses/search"));
+        assertFalse(trie.matches("GET", "/api/courses/4a"));
+        assertFalse(trie.matches("GET", "/api/courses/42/enroll"));
+        assertFalse(trie.matches("POST", "/api/courses/42"));
+    }
+
+    @Test
+    void backtracksFromLiteralToPlaceholder() {
+        RouteTrie trie = trie(
+                get("/a/b/c"),
+                get("/a/{x}/d"),
+                get("/r/{id:\\d+}/x"),
+                get("/r/{name}/y"));
+
+        assertTrue(trie.matches("GET", "/a/b/c"));
+        assertTrue(trie.matches("GET", "/a/b/d"));   // literal "b" fails at "d", {x} takes it
+        assertTrue(trie.matches("GET", "/a/z/d"));
+        assertFalse(trie.matches("GET", "/a/z/c"));
+        assertTrue(trie.matches("GET", "/r/12/x"));
+        assertTrue(trie.matches("GET", "/r/12/y"));  // digits branch fails, {name} takes it
+        assertFalse(trie.matches("GET", "/r/ab/x"));
+    }
+
+    @Test
+    void everyPublicRouteIsPublic() {
+        PathPatternParser parser = new PathPatternParser();
+        for (PublicRoutes.Route route : PublicRoutes.ROUTES) {
+            PathPattern pattern = parser.parse(route.pattern());
+            String method = route.method() == null ? "GET" : route.method().name();
+            for (String path : samplePaths(route.pattern())) {
+                // Same verdict as the Spring matcher SecurityConfig registers
+                assertTrue(pattern.matches(PathContainer.parsePath(path)), route.pattern() + " vs " + path);
+                assertTrue(PUBLIC.matches(method, path), method + " " + path + " from " + route.pattern());
+            }
+        }
+    }
+
+    @Test
+    void protectedRoutesAreNotPublic() {
+        assertFalse(PUBLIC.matches("POST", "/api/course/assessment/submit"));
+        assertFalse(PUBLIC.matches("POST", "/api/course/assessment/submit/bulk"));
+        assertFalse(PUBLIC.matches("POST", "/api/courses"));
+        assertFalse(PUBLIC.matches("PUT", "/api/courses/5"));
+        assertFalse(PUBLIC.matches("DELETE", "/api/courses/5"));
+        assertFalse(PUBLIC.matches("GET", "/api/courses/search"));
+        assertFalse(PUBLIC.matches("GET", "/api/courses/subscribed/5"));
+        assertFalse(PUBLIC.matches("GET", "/api/courses/5/enroll"));
+        assertFalse(PUBLIC.matches("GET", "/api/auth/jwt/me"));
+        assertFalse(PUBLIC.matches("PUT", "/api/auth/profile/update"));
+        assertFalse(PUBLIC.matches("GET", "/api/streak/1"));
+        assertFalse(PUBLIC.matches("POST", "/api/videos/7/complete"));
+        assertFalse(PUBLIC.matches("GET", "/api/cart/items"));
+        assertFalse(PUBLIC.matches("GET", "/api/users/3"));
+        assertFalse(PUBLIC.matches("GET", "/api/dashboard/stats"));
+        assertFalse(PUBLIC.matches("GET", "/actuator/env"));
+    }
+
+    @Test
+    void optionsIsAlwaysPublic() {
+        assertTrue(PUBLIC.matches("OPTIONS", "/api/cart/items"));
+        assertTrue(PUBLIC.matches("OPTIONS", "/"));
+    }
+
+    @Test
+    void rejectsMalformedRequests() {
+        assertFalse(PUBLIC.matches("GET", "api/courses"));
+        assertFalse(PUBLIC.matches("GET", ""));
+        assertFalse(PUBLIC.matches("BREW", "/api/courses"));
+        assertFalse(PUBLIC.matches(null, "/api/courses"));
+    }
+
+    // Concrete paths a pattern must match: placeholders filled in, "/**" as bare prefix and deeper
+    private static List<String> samplePaths(String pattern) {
+        String filled = pattern.replaceAll("\\{[^}:]+:\\\\d\\+}", "123").replaceAll("\\{[^}]+}", "abc");
+        List<String> paths = new ArrayList<>();
+        if (filled.endsWith("/**")) {
+            String prefix = filled.substring(0, filled.length() - 3);
+            paths.add(prefix.isEmpty() ? "/" : prefix);
+            paths.add(prefix + "/x/y");
+        } else {
+            paths.add(filled);
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.cdaxVideo.Repository;
+
+import com.example.cdaxVideo.Entity.Course;
+import com.example.cdaxVideo.Entity.User;
+import com.example.cdaxVideo.Entity.UserStreak;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SpringBootTest
+class UserStreakRepositoryConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 25;
+
+    // A day no real activity can land on
+    private static final LocalDate STREAK_DATE = LocalDate.of(2099, 12, 31);
+
+    @Autowired
+    private UserStreakRepository userStreakRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private Long userId;
+    private Long courseId;
+
+    @AfterEach
+    void cleanUp() {
+        if (userId != null && courseId != null) {
+            userStreakRepository.findByUserIdAndCourseIdAndStreakDate(userId, courseId, STREAK_DATE)
+                .ifPresent(userStreakRepository::delete);
+        }
+    }
+
+    @Test
+    void concurrentUpsertsDoNotLoseIncrements() throws Exception {
+        List<User> users = userRepository.findAll(PageRequest.of(0, 1)).getContent();
+        List<Course> courses = courseRepository.findAll(PageRequest.of(0, 1)).getContent();
+        assumeTrue(!users.isEmpty() && !courses.isEmpty(), "needs at least one user and one course");
+        userId = users.get(0).getId();
+        courseId = courses.get(0).getId();
+        cleanUp();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Callable<Integer> worker = () -> {
+                    start.await();
+                    int rows = 0;
+                    for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                        rows += userStreakRepository.upsertDailyProgress(
+                            userId, courseId, STREAK_DATE, 10, 1, 1000, 10);
+                    }
+                    return rows;
+                };
+                futures.add(pool.submit(worker));
+            }
+            start.countDown();
+            for (Future<Integer> future : futures) {
+                assertEquals(UPDATES_PER_THREAD, future.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        UserStreak streak = userStreakRepository
+            .findByUserIdAndCourseIdAndStreakDate(userId, courseId, STREAK_DATE)
+            .orElseThrow();
+        int total = THREADS * UPDATES_PER_THREAD;
+        assertEquals(total * 10, streak.getWatchedSeconds());
+        assertEquals(total, streak.getCompletedVideosCount());
+        assertEquals(total * 10 * 100.0 / 1000, streak.getProgressPercentage(), 0.0001);
+        assertEquals(true, streak.getIsActiveDay());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.cdaxVideo.Service;
+
+import com.example.cdaxVideo.Entity.UserCoursePurchase;
+import com.example.cdaxVideo.Repository.UserCoursePurchaseRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CourseProgressQueryCountTest {
+
+    // user check + module rollup + purchase check
+    private static final long COURSE_PROGRESS_STATEMENTS = 3;
+    // user check + purchased course ids + module rollup (no rollup without courses)
+    private static final long OVERALL_PROGRESS_STATEMENTS = 3;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private UserCoursePurchaseRepository purchaseRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long userId;
+    private Long courseId;
+
+    @BeforeEach
+    void setUp() {
+        List<UserCoursePurchase> purchases = purchaseRepository.findAll(PageRequest.of(0, 1)).getContent();
+        assumeTrue(!purchases.isEmpty(), "needs at least one course purchase");
+        userId = purchases.get(0).getUser().getId();
+        courseId = purchases.get(0).getCourse().getId();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void courseProgressUsesFixedNumberOfStatements() {
+        statistics.clear();
+        Map<String, Object> progress = courseService.calculateCourseProgress(userId, courseId);
+
+        assertEquals(courseId, progress.get("courseId"));
+        assertEquals(COURSE_PROGRESS_STATEMENTS, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void overallProgressUsesFixedNumberOfStatements() {
+        statistics.clear();
+        Map<String, Object> progress = courseService.getUserOverallProgress(userId);
+
+        assertEquals(userId, progress.get("userId"));
+        assertTrue(statistics.getPrepareStatementCount() <= OVERALL_PROGRESS_STATEMENTS,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+}